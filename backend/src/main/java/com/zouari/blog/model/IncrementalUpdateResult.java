@@ -0,0 +1,55 @@
+package com.zouari.blog.model;
+
+public class IncrementalUpdateResult {
+    private int added;
+    private int updated;
+    private int unchanged;
+    private int deleted;
+
+    public IncrementalUpdateResult() {
+    }
+
+    public IncrementalUpdateResult(int added, int updated, int unchanged, int deleted) {
+        this.added = added;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.deleted = deleted;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public void setAdded(int added) {
+        this.added = added;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(int deleted) {
+        this.deleted = deleted;
+    }
+
+    @Override
+    public String toString() {
+        return added + " added, " + updated + " updated, " + unchanged + " unchanged, " + deleted + " deleted";
+    }
+}
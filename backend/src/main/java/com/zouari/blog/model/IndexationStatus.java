@@ -1,5 +1,11 @@
 package com.zouari.blog.model;
 
+import java.util.Map;
+
+/**
+ * Snapshot of the progress of the current or last indexation job. A new snapshot is taken for
+ * every read, so instances are never modified while they are being serialized.
+ */
 public class IndexationStatus {
     private Status status;
     private int totalPages;
@@ -8,6 +14,16 @@ public class IndexationStatus {
     private String message;
     private Long startTime;
     private Long endTime;
+    private Phase phase;
+    private long fetchedPages;
+    private long failedRequests;
+    private long retriedRequests;
+    private long bytesDownloaded;
+    private int queueDepth;
+    private double pagesPerSecond;
+    private double usersPerSecond;
+    private Long etaSeconds;
+    private Map<String, Long> phaseDurationsMs;
 
     public enum Status {
         NOT_STARTED,
@@ -16,6 +32,16 @@ public class IndexationStatus {
         FAILED
     }
 
+    public enum Phase {
+        /** Opening or resuming the generation to index into. */
+        PREPARING,
+        /** Fetching and indexing pages. */
+        INDEXING,
+        /** Committing the index and swapping it in. */
+        COMMITTING,
+        FINISHED
+    }
+
     public IndexationStatus() {
     }
 
@@ -80,6 +106,95 @@ public class IndexationStatus {
         this.endTime = endTime;
     }
 
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+
+    public long getFetchedPages() {
+        return fetchedPages;
+    }
+
+    public void setFetchedPages(long fetchedPages) {
+        this.fetchedPages = fetchedPages;
+    }
+
+    public long getFailedRequests() {
+        return failedRequests;
+    }
+
+    public void setFailedRequests(long failedRequests) {
+        this.failedRequests = failedRequests;
+    }
+
+    public long getRetriedRequests() {
+        return retriedRequests;
+    }
+
+    public void setRetriedRequests(long retriedRequests) {
+        this.retriedRequests = retriedRequests;
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded;
+    }
+
+    public void setBytesDownloaded(long bytesDownloaded) {
+        this.bytesDownloaded = bytesDownloaded;
+    }
+
+    /**
+     * Pages fetched and waiting to be indexed.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public double getPagesPerSecond() {
+        return pagesPerSecond;
+    }
+
+    public void setPagesPerSecond(double pagesPerSecond) {
+        this.pagesPerSecond = pagesPerSecond;
+    }
+
+    public double getUsersPerSecond() {
+        return usersPerSecond;
+    }
+
+    public void setUsersPerSecond(double usersPerSecond) {
+        this.usersPerSecond = usersPerSecond;
+    }
+
+    /**
+     * Estimated time until all pages are indexed at the current rate, null until it can be estimated.
+     */
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    /**
+     * Time spent so far in each part of the job, by name.
+     */
+    public Map<String, Long> getPhaseDurationsMs() {
+        return phaseDurationsMs;
+    }
+
+    public void setPhaseDurationsMs(Map<String, Long> phaseDurationsMs) {
+        this.phaseDurationsMs = phaseDurationsMs;
+    }
+
     public String getDurationFormatted() {
         if (startTime != null && endTime != null) {
             long durationMs = endTime - startTime;
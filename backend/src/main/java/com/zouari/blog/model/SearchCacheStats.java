@@ -0,0 +1,60 @@
+package com.zouari.blog.model;
+
+public class SearchCacheStats {
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private double hitRate;
+    private long size;
+
+    public SearchCacheStats() {
+    }
+
+    public SearchCacheStats(long hitCount, long missCount, long evictionCount, double hitRate, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.hitRate = hitRate;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,29 @@
+package com.zouari.blog.model;
+
+import java.util.Locale;
+
+/**
+ * How the name of a search is matched against the first and last names of the users.
+ */
+public enum SearchMode {
+    /** Each query token is a substring of a name, ignoring case and accents. */
+    SUBSTRING,
+    /**
+     * Each query token is within a few edits (insertions, deletions, substitutions or
+     * transpositions) of a name, ignoring case and accents: "Jonh" finds "John".
+     */
+    FUZZY;
+
+    /**
+     * Parses a mode as accepted by the {@code mode} query parameter, ignoring case.
+     *
+     * @throws IllegalArgumentException if there is no such mode
+     */
+    public static SearchMode fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown search mode: " + value.trim());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.zouari.blog.model;
+
+import java.util.List;
+import java.util.Map;
+
+public class SearchPage {
+    private List<User> users;
+    private String nextCursor;
+    private long totalHits;
+    private Map<String, Map<String, Long>> facets;
+
+    public SearchPage() {
+    }
+
+    public SearchPage(List<User> users, String nextCursor, long totalHits) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+        this.totalHits = totalHits;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<User> users) {
+        this.users = users;
+    }
+
+    /**
+     * Opaque cursor to pass as {@code searchAfter} to get the next page, null on the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(long totalHits) {
+        this.totalHits = totalHits;
+    }
+
+    /**
+     * Number of hits per value of each requested facet dimension, most frequent values first, or
+     * null when the search requested no facets.
+     */
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Long>> facets) {
+        this.facets = facets;
+    }
+}
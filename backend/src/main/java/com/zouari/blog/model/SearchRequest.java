@@ -0,0 +1,106 @@
+package com.zouari.blog.model;
+
+import java.util.Set;
+
+public class SearchRequest {
+    public static final int DEFAULT_SIZE = 100;
+    public static final int MAX_SIZE = 1000;
+    // Fuzzy matching: Lucene's Levenshtein automata support up to 2 edits
+    public static final int MAX_EDITS = 2;
+    public static final int DEFAULT_MAX_EDITS = 2;
+    public static final int DEFAULT_PREFIX_LENGTH = 1;
+
+    private String name;
+    private int size = DEFAULT_SIZE;
+    private String searchAfter;
+    private Set<UserField> fields;
+    private Set<UserFacet> facets;
+    private SearchMode mode = SearchMode.SUBSTRING;
+    private int maxEdits = DEFAULT_MAX_EDITS;
+    private int prefixLength = DEFAULT_PREFIX_LENGTH;
+
+    public SearchRequest() {
+    }
+
+    public SearchRequest(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getSearchAfter() {
+        return searchAfter;
+    }
+
+    public void setSearchAfter(String searchAfter) {
+        this.searchAfter = searchAfter;
+    }
+
+    /**
+     * Fields to project from doc values, or null (or empty) to return complete users from the
+     * stored fields.
+     */
+    public Set<UserField> getFields() {
+        return fields;
+    }
+
+    public void setFields(Set<UserField> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Fields whose values are counted over all hits, or null (or empty) for no counts.
+     */
+    public Set<UserFacet> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Set<UserFacet> facets) {
+        this.facets = facets;
+    }
+
+    public SearchMode getMode() {
+        return mode;
+    }
+
+    public void setMode(SearchMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Edits allowed between a query token and a name in {@link SearchMode#FUZZY} mode, from 0 to 2.
+     */
+    public int getMaxEdits() {
+        return maxEdits;
+    }
+
+    public void setMaxEdits(int maxEdits) {
+        this.maxEdits = maxEdits;
+    }
+
+    /**
+     * Leading characters of a query token that must match exactly in {@link SearchMode#FUZZY}
+     * mode. Each one divides the number of terms the fuzzy automaton has to visit.
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public void setPrefixLength(int prefixLength) {
+        this.prefixLength = prefixLength;
+    }
+}
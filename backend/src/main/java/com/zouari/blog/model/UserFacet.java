@@ -0,0 +1,33 @@
+package com.zouari.blog.model;
+
+import java.util.Locale;
+
+/**
+ * User fields whose values a search can count over all of its hits, from the index's facet doc
+ * values.
+ */
+public enum UserFacet {
+    NATIONALITY,
+    GENDER,
+    COUNTRY;
+
+    /**
+     * The facet dimension in the index, also its key in search results.
+     */
+    public String getDimension() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses a facet name as accepted by the {@code facets} query parameter, ignoring case.
+     *
+     * @throws IllegalArgumentException if there is no such facet
+     */
+    public static UserFacet fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown facet: " + value.trim());
+        }
+    }
+}
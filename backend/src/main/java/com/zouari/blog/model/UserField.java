@@ -0,0 +1,28 @@
+package com.zouari.blog.model;
+
+import java.util.Locale;
+
+/**
+ * User fields that a search can project, read from the index's doc values instead of the stored
+ * document. The user's uuid is always returned.
+ */
+public enum UserField {
+    /** First and last name. */
+    NAME,
+    EMAIL,
+    NATIONALITY,
+    CITY;
+
+    /**
+     * Parses a field name as accepted by the {@code fields} query parameter, ignoring case.
+     *
+     * @throws IllegalArgumentException if there is no such field
+     */
+    public static UserField fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown field: " + value.trim());
+        }
+    }
+}
@@ -1,20 +1,38 @@
 package com.zouari.blog.resource;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zouari.blog.model.IndexationStatus;
 import com.zouari.blog.service.IndexationService;
+import com.zouari.blog.service.IndexationStatusListener;
 
 import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
 
 @Path("/indexation")
 public class IndexationResource {
+    private static final Logger LOGGER = Logger.getLogger(IndexationResource.class.getName());
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> STATUS_FIELDS = new TypeReference<>() { };
 
     @Inject
     private IndexationService indexationService;
@@ -22,8 +40,14 @@ public class IndexationResource {
     @POST
     @Path("/start")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response startIndexation() {
-        boolean started = indexationService.startIndexation();
+    public Response startIndexation(@QueryParam("mode") @DefaultValue("full") String mode) {
+        if (!mode.equals("full") && !mode.equals("incremental")) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query parameter 'mode' must be 'full' or 'incremental'");
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
+        }
+        
+        boolean started = indexationService.startIndexation(mode.equals("incremental"));
 
         if (!started) {
             Map<String, String> error = new HashMap<>();
@@ -37,6 +61,36 @@ public class IndexationResource {
         return Response.ok(response).build();
     }
 
+    @POST
+    @Path("/import")
+    @Consumes({"application/x-ndjson", "application/gzip", MediaType.APPLICATION_OCTET_STREAM})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importUsers(@QueryParam("mode") @DefaultValue("full") String mode, InputStream body) {
+        if (!mode.equals("full") && !mode.equals("incremental")) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query parameter 'mode' must be 'full' or 'incremental'");
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
+        }
+        
+        try {
+            int importedUsers = indexationService.importUsers(body, mode.equals("incremental"));
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "COMPLETED");
+            response.put("importedUsers", importedUsers);
+            return Response.ok(response).build();
+        } catch (IllegalStateException | IllegalArgumentException | JsonProcessingException e) {
+            // Job already running, empty body or malformed line
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
+        } catch (Exception e) {
+            LOGGER.severe("Error importing users: " + e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error importing users: " + e.getMessage());
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(error).build();
+        }
+    }
+
     @GET
     @Path("/status")
     @Produces(MediaType.APPLICATION_JSON)
@@ -44,4 +98,79 @@ public class IndexationResource {
         IndexationStatus status = indexationService.getStatus();
         return Response.ok(status).build();
     }
+
+    /**
+     * Streams the indexation status as server-sent events: a {@code status} event with the full
+     * status, then a {@code progress} event with the fields that changed, whenever they change.
+     */
+    @GET
+    @Path("/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamStatus(@Context SseEventSink eventSink, @Context Sse sse) {
+        indexationService.addStatusListener(new StatusEventSender(eventSink, sse));
+    }
+
+    /**
+     * Sends the status to one client, as a delta of the last status it was sent.
+     */
+    private static class StatusEventSender implements IndexationStatusListener {
+        private final SseEventSink eventSink;
+        private final Sse sse;
+        private Map<String, Object> lastSent;
+
+        StatusEventSender(SseEventSink eventSink, Sse sse) {
+            this.eventSink = eventSink;
+            this.sse = sse;
+        }
+
+        @Override
+        public void onStatus(IndexationStatus status) {
+            checkConnected();
+            Map<String, Object> fields = OBJECT_MAPPER.convertValue(status, STATUS_FIELDS);
+            String name = "status";
+            Map<String, Object> data = fields;
+            if (lastSent != null) {
+                name = "progress";
+                data = new LinkedHashMap<>();
+                for (Map.Entry<String, Object> field : fields.entrySet()) {
+                    if (!Objects.equals(field.getValue(), lastSent.get(field.getKey()))) {
+                        data.put(field.getKey(), field.getValue());
+                    }
+                }
+                if (data.isEmpty()) {
+                    return;
+                }
+            }
+            lastSent = fields;
+            send(sse.newEventBuilder()
+                    .name(name)
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(Map.class, data)
+                    .build());
+        }
+
+        /**
+         * Writes a comment, which clients ignore: writing to a departed client fails and closes
+         * the sink, and the next call unsubscribes.
+         */
+        @Override
+        public void onHeartbeat() {
+            checkConnected();
+            send(sse.newEventBuilder().comment("heartbeat").build());
+        }
+
+        private void checkConnected() {
+            if (eventSink.isClosed()) {
+                throw new IllegalStateException("Client disconnected");
+            }
+        }
+
+        private void send(OutboundSseEvent event) {
+            eventSink.send(event).whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    eventSink.close();
+                }
+            });
+        }
+    }
 }
@@ -1,23 +1,37 @@
 package com.zouari.blog.resource;
 
-import com.zouari.blog.model.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zouari.blog.model.SearchMode;
+import com.zouari.blog.model.SearchPage;
+import com.zouari.blog.model.SearchRequest;
+import com.zouari.blog.model.UserFacet;
+import com.zouari.blog.model.UserField;
 import com.zouari.blog.service.LuceneIndexService;
 
 import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 @Path("/search")
 public class SearchResource {
     private static final Logger LOGGER = Logger.getLogger(SearchResource.class.getName());
+    // The container owns the response stream
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    private static final int MAX_SUGGESTIONS = 50;
 
     @Inject
     private LuceneIndexService luceneIndexService;
@@ -25,16 +39,54 @@ public class SearchResource {
     @GET
     @Path("/users")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response searchUsers(@QueryParam("name") String name) {
+    public Response searchUsers(@QueryParam("name") String name,
+                                @QueryParam("size") @DefaultValue("100") int size,
+                                @QueryParam("searchAfter") String searchAfter,
+                                @QueryParam("fields") String fields,
+                                @QueryParam("facets") String facets,
+                                @QueryParam("mode") @DefaultValue("substring") String mode,
+                                @QueryParam("maxEdits") @DefaultValue("2") int maxEdits,
+                                @QueryParam("prefixLength") @DefaultValue("1") int prefixLength) {
         if (name == null || name.trim().isEmpty()) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Query parameter 'name' is required");
             return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
         }
+        
+        if (size < 1 || size > SearchRequest.MAX_SIZE) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query parameter 'size' must be between 1 and " + SearchRequest.MAX_SIZE);
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
+        }
+        
+        if (maxEdits < 0 || maxEdits > SearchRequest.MAX_EDITS) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query parameter 'maxEdits' must be between 0 and " + SearchRequest.MAX_EDITS);
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
+        }
+        
+        if (prefixLength < 0) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query parameter 'prefixLength' must not be negative");
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
+        }
 
         try {
-            List<User> users = luceneIndexService.searchUsersByName(name.trim());
-            return Response.ok(users).build();
+            SearchRequest request = new SearchRequest(name.trim());
+            request.setMode(SearchMode.fromParameter(mode));
+            request.setMaxEdits(maxEdits);
+            request.setPrefixLength(prefixLength);
+            request.setSize(size);
+            request.setSearchAfter(searchAfter);
+            request.setFields(parseFields(fields));
+            request.setFacets(parseFacets(facets));
+            luceneIndexService.checkSearchable(request);
+            return Response.ok(streamSearchPage(request)).build();
+        } catch (IllegalArgumentException e) {
+            // Unknown field, facet or mode, or cursor not returned by a previous search
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
         } catch (IllegalStateException e) {
             // Index not created yet
             LOGGER.warning("Index not created: " + e.getMessage());
@@ -49,4 +101,83 @@ public class SearchResource {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(error).build();
         }
     }
+
+    /**
+     * Writes the {@link SearchPage} envelope with each user serialized as soon as the index hands
+     * it over, instead of building the whole page before serializing it.
+     */
+    private StreamingOutput streamSearchPage(SearchRequest request) {
+        return output -> {
+            try (JsonGenerator generator = OBJECT_MAPPER.createGenerator(output)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("users");
+                SearchPage page = luceneIndexService.searchUsers(request, generator::writeObject);
+                generator.writeEndArray();
+                generator.writeStringField("nextCursor", page.getNextCursor());
+                generator.writeNumberField("totalHits", page.getTotalHits());
+                if (page.getFacets() != null) {
+                    generator.writeObjectField("facets", page.getFacets());
+                }
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    private Set<UserField> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<UserField> parsed = EnumSet.noneOf(UserField.class);
+        for (String field : fields.split(",")) {
+            parsed.add(UserField.fromParameter(field));
+        }
+        return parsed;
+    }
+
+    private Set<UserFacet> parseFacets(String facets) {
+        if (facets == null || facets.isBlank()) {
+            return null;
+        }
+        Set<UserFacet> parsed = EnumSet.noneOf(UserFacet.class);
+        for (String facet : facets.split(",")) {
+            parsed.add(UserFacet.fromParameter(facet));
+        }
+        return parsed;
+    }
+
+    @GET
+    @Path("/suggest")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response suggestNames(@QueryParam("prefix") String prefix,
+                                 @QueryParam("size") @DefaultValue("10") int size) {
+        if (prefix == null || prefix.isBlank()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query parameter 'prefix' is required");
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
+        }
+        
+        if (size < 1 || size > MAX_SUGGESTIONS) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query parameter 'size' must be between 1 and " + MAX_SUGGESTIONS);
+            return Response.status(Response.Status.BAD_REQUEST).entity(error).build();
+        }
+        
+        try {
+            Map<String, List<String>> response = new HashMap<>();
+            response.put("suggestions", luceneIndexService.suggestNames(prefix.trim(), size));
+            return Response.ok(response).build();
+        } catch (Exception e) {
+            LOGGER.severe("Error suggesting names: " + e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error suggesting names: " + e.getMessage());
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(error).build();
+        }
+    }
+
+    @GET
+    @Path("/cache/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCacheStats() {
+        return Response.ok(luceneIndexService.getSearchCacheStats()).build();
+    }
 }
@@ -0,0 +1,73 @@
+package com.zouari.blog.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops calls to a failing dependency: after {@code failureThreshold} consecutive failures the
+ * breaker opens and rejects calls for {@code openDuration}, then lets a single trial call through.
+ * The breaker closes again when the trial succeeds and reopens when it fails.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        if (failureThreshold < 1 || openDuration < 0) {
+            throw new IllegalArgumentException("Failure threshold must be positive and open duration not negative");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+    }
+
+    /**
+     * Whether a call may be made now. Every permitted call must be followed by
+     * {@link #recordSuccess()} or {@link #recordFailure()}.
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
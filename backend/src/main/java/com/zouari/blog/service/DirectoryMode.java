@@ -0,0 +1,85 @@
+package com.zouari.blog.service;
+
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.store.SingleInstanceLockFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Storage backends for the Lucene index, selected with the {@code lucene.directory} system
+ * property. The in-memory modes keep each index generation in {@link ByteBuffer}s and lose it on
+ * restart: they suit small corpora and tests.
+ */
+public enum DirectoryMode {
+    /** Lets Lucene pick the best file system implementation for the platform. */
+    FS(true) {
+        @Override
+        Directory open(Path path) throws IOException {
+            return FSDirectory.open(path);
+        }
+    },
+    /** Memory-mapped files, with every file preloaded into the page cache when opened. */
+    MMAP(true) {
+        @Override
+        Directory open(Path path) throws IOException {
+            MMapDirectory directory = new MMapDirectory(path);
+            directory.setPreload(MMapDirectory.ALL_FILES);
+            return directory;
+        }
+    },
+    /** Positional reads through a FileChannel, for platforms where mmap is not an option. */
+    NIO(true) {
+        @Override
+        Directory open(Path path) throws IOException {
+            return new NIOFSDirectory(path);
+        }
+    },
+    /** Heap byte buffers. */
+    HEAP(false) {
+        @Override
+        Directory open(Path path) {
+            return new ByteBuffersDirectory();
+        }
+    },
+    /** Direct byte buffers, kept out of the Java heap and away from the garbage collector. */
+    OFFHEAP(false) {
+        @Override
+        Directory open(Path path) {
+            return new ByteBuffersDirectory(new SingleInstanceLockFactory(),
+                    () -> new ByteBuffersDataOutput(ByteBuffersDataOutput.DEFAULT_MIN_BITS_PER_BLOCK,
+                            ByteBuffersDataOutput.DEFAULT_MAX_BITS_PER_BLOCK,
+                            ByteBuffer::allocateDirect, ByteBuffersDataOutput.NO_REUSE),
+                    ByteBuffersDirectory.OUTPUT_AS_MANY_BUFFERS);
+        }
+    };
+
+    private final boolean persistent;
+
+    DirectoryMode(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    /**
+     * Whether the index is stored under the index directory and survives a restart.
+     */
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    /**
+     * Opens the directory of one index generation; {@code path} is ignored by in-memory modes.
+     */
+    abstract Directory open(Path path) throws IOException;
+
+    public static DirectoryMode fromSystemProperty() {
+        return valueOf(System.getProperty("lucene.directory", "fs").toUpperCase(Locale.ROOT));
+    }
+}
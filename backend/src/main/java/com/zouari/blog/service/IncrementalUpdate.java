@@ -0,0 +1,114 @@
+package com.zouari.blog.service;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.Bits;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State of one incremental update of the live generation: a searcher pinned to the index as it
+ * was when the update began, to compare incoming users against, and the uuids seen since.
+ */
+class IncrementalUpdate implements Closeable {
+    private final IndexSearcher snapshot;
+    private final Set<String> seenUuids = new HashSet<>();
+    private int added;
+    private int updated;
+    private int unchanged;
+
+    IncrementalUpdate(IndexSearcher snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Records that {@code uuid} is still present upstream.
+     */
+    void markSeen(String uuid) {
+        seenUuids.add(uuid);
+    }
+
+    /**
+     * Returns the document of {@code uuid} in the snapshot, or -1 if it was not indexed.
+     */
+    int findDocument(String uuid) throws IOException {
+        TopDocs topDocs = snapshot.search(new TermQuery(new Term("uuid", uuid)), 1);
+        return topDocs.scoreDocs.length > 0 ? topDocs.scoreDocs[0].doc : -1;
+    }
+
+    /**
+     * Returns the content hash stored with a snapshot document, or null for documents indexed
+     * before content hashes were.
+     */
+    Long getContentHash(int doc) throws IOException {
+        List<LeafReaderContext> leaves = snapshot.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+        NumericDocValues hashes = DocValues.getNumeric(leaf.reader(), "contentHash");
+        return hashes.advanceExact(doc - leaf.docBase) ? hashes.longValue() : null;
+    }
+
+    /**
+     * Terms of the uuids indexed in the snapshot that have not been seen in this update.
+     */
+    List<Term> unseenUuids() throws IOException {
+        List<Term> unseen = new ArrayList<>();
+        for (LeafReaderContext leaf : snapshot.getIndexReader().leaves()) {
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            SortedDocValues uuids = DocValues.getSorted(leaf.reader(), "uuid");
+            for (int doc = uuids.nextDoc(); doc != SortedDocValues.NO_MORE_DOCS; doc = uuids.nextDoc()) {
+                if (liveDocs != null && !liveDocs.get(doc)) {
+                    continue;
+                }
+                String uuid = uuids.lookupOrd(uuids.ordValue()).utf8ToString();
+                if (!seenUuids.contains(uuid)) {
+                    unseen.add(new Term("uuid", uuid));
+                }
+            }
+        }
+        return unseen;
+    }
+
+    void recordAdded() {
+        added++;
+    }
+
+    void recordUpdated() {
+        updated++;
+    }
+
+    void recordUnchanged() {
+        unchanged++;
+    }
+
+    int getAdded() {
+        return added;
+    }
+
+    int getUpdated() {
+        return updated;
+    }
+
+    int getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Releases the snapshot.
+     */
+    @Override
+    public void close() throws IOException {
+        snapshot.getIndexReader().decRef();
+    }
+}
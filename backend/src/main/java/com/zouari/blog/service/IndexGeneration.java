@@ -0,0 +1,98 @@
+package com.zouari.blog.service;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+/**
+ * One complete copy of the index: its directory, the long-lived writer and the near-real-time
+ * searcher manager on top of it. A reindex builds a new generation next to the live one and
+ * {@link LuceneIndexService} swaps them once it is complete.
+ */
+class IndexGeneration {
+    private static final Logger LOGGER = Logger.getLogger(IndexGeneration.class.getName());
+
+    private final long number;
+    private final Path path;
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    private IndexGeneration(long number, Path path, Directory directory, IndexWriter writer) throws IOException {
+        this.number = number;
+        this.path = path;
+        this.directory = directory;
+        this.writer = writer;
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    static IndexGeneration open(long number, Path path, Directory directory, IndexWriterConfig config) throws IOException {
+        IndexWriter writer = null;
+        try {
+            writer = new IndexWriter(directory, config);
+            return new IndexGeneration(number, path, directory, writer);
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeWhileHandlingException(writer, directory);
+            throw e;
+        }
+    }
+
+    long getNumber() {
+        return number;
+    }
+
+    IndexWriter getWriter() {
+        return writer;
+    }
+
+    SearcherManager getSearcherManager() {
+        return searcherManager;
+    }
+
+    /**
+     * Closes this generation, committing pending changes.
+     */
+    void close() throws IOException {
+        IOUtils.close(searcherManager, writer, directory);
+    }
+
+    /**
+     * Closes this generation after it has been replaced: uncommitted changes are dropped, and the
+     * directory is closed and deleted once the last searcher still used by an in-flight query is
+     * released.
+     */
+    void retire() throws IOException {
+        writer.rollback();
+        IndexSearcher lastSearcher = searcherManager.acquire();
+        try {
+            lastSearcher.getIndexReader().getReaderCacheHelper().addClosedListener(key -> delete());
+        } finally {
+            searcherManager.release(lastSearcher);
+        }
+        searcherManager.close();
+    }
+
+    /**
+     * Abandons a generation that never went live.
+     */
+    void discard() throws IOException {
+        writer.rollback();
+        searcherManager.close();
+        delete();
+    }
+
+    private void delete() throws IOException {
+        directory.close();
+        if (path != null) {
+            IOUtils.rm(path);
+        }
+        LOGGER.info("Deleted index generation " + number);
+    }
+}
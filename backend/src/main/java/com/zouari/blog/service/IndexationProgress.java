@@ -0,0 +1,184 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.model.IndexationStatus;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Live progress of one indexation job. The job thread and fetch callbacks update it with atomic
+ * counters and volatile fields, without locking, and request threads can poll {@link #snapshot()}
+ * as often as they like: every snapshot is a new {@link IndexationStatus}.
+ */
+class IndexationProgress {
+    /**
+     * Parts of a job whose time is measured; waiting for pages and indexing them alternate.
+     */
+    enum Timer {
+        PREPARING,
+        WAITING_FOR_PAGES,
+        INDEXING,
+        COMMITTING
+    }
+
+    private final int totalPages;
+    private final long startTime = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private volatile IndexationStatus.Status status = IndexationStatus.Status.IN_PROGRESS;
+    private volatile IndexationStatus.Phase phase = IndexationStatus.Phase.PREPARING;
+    private volatile String message;
+    private volatile Long endTime;
+    private volatile int resumedPages;
+    private volatile int resumedUsers;
+    private final AtomicInteger processedPages = new AtomicInteger();
+    private final AtomicInteger indexedUsers = new AtomicInteger();
+    private final LongAdder fetchedPages = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+    private final LongAdder retriedRequests = new LongAdder();
+    private final Map<Timer, LongAdder> timerNanos = new EnumMap<>(Timer.class);
+    // Bumped by every change worth telling status listeners about
+    private final LongAdder updates = new LongAdder();
+    private volatile IntSupplier queueDepth = () -> 0;
+    private volatile LongSupplier bytesDownloaded = () -> 0;
+
+    IndexationProgress(int totalPages, String message) {
+        this.totalPages = totalPages;
+        this.message = message;
+        for (Timer timer : Timer.values()) {
+            timerNanos.put(timer, new LongAdder());
+        }
+    }
+
+    static IndexationProgress notStarted() {
+        IndexationProgress progress = new IndexationProgress(0, null);
+        progress.status = IndexationStatus.Status.NOT_STARTED;
+        return progress;
+    }
+
+    boolean isInProgress() {
+        return status == IndexationStatus.Status.IN_PROGRESS;
+    }
+
+    void setPhase(IndexationStatus.Phase phase) {
+        this.phase = phase;
+        updates.increment();
+    }
+
+    void setMessage(String message) {
+        this.message = message;
+        updates.increment();
+    }
+
+    /**
+     * Pages and users a resumed job already had before it started.
+     */
+    void recordResumed(int pages, int users) {
+        resumedPages = pages;
+        resumedUsers = users;
+        recordProcessed(pages, users);
+    }
+
+    void recordProcessed(int pages, int users) {
+        processedPages.set(pages);
+        indexedUsers.set(users);
+        updates.increment();
+    }
+
+    void recordFetchedPage() {
+        fetchedPages.increment();
+        updates.increment();
+    }
+
+    void recordFailedRequest() {
+        failedRequests.increment();
+        updates.increment();
+    }
+
+    void recordRetriedRequest() {
+        retriedRequests.increment();
+        updates.increment();
+    }
+
+    void addTime(Timer timer, long nanos) {
+        timerNanos.get(timer).add(nanos);
+    }
+
+    void setQueueDepth(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    void setBytesDownloaded(LongSupplier bytesDownloaded) {
+        this.bytesDownloaded = bytesDownloaded;
+    }
+
+    void complete(String message) {
+        finish(IndexationStatus.Status.COMPLETED, message);
+    }
+
+    void fail(String message) {
+        finish(IndexationStatus.Status.FAILED, message);
+    }
+
+    private void finish(IndexationStatus.Status status, String message) {
+        this.message = message;
+        this.endTime = System.currentTimeMillis();
+        this.phase = IndexationStatus.Phase.FINISHED;
+        this.queueDepth = () -> 0;
+        // Published last: a reader that sees the final status sees the rest of the job's end too
+        this.status = status;
+        updates.increment();
+    }
+
+    /**
+     * The number of changes so far; a different value means a new snapshot is worth taking.
+     */
+    long getUpdates() {
+        return updates.sum();
+    }
+
+    IndexationStatus snapshot() {
+        IndexationStatus snapshot = new IndexationStatus(status);
+        if (status == IndexationStatus.Status.NOT_STARTED) {
+            return snapshot;
+        }
+        int pages = processedPages.get();
+        int users = indexedUsers.get();
+        snapshot.setTotalPages(totalPages);
+        snapshot.setProcessedPages(pages);
+        snapshot.setTotalUsers(users);
+        snapshot.setMessage(message);
+        snapshot.setStartTime(startTime);
+        snapshot.setEndTime(endTime);
+        snapshot.setPhase(phase);
+        snapshot.setFetchedPages(fetchedPages.sum());
+        snapshot.setFailedRequests(failedRequests.sum());
+        snapshot.setRetriedRequests(retriedRequests.sum());
+        snapshot.setBytesDownloaded(bytesDownloaded.getAsLong());
+        snapshot.setQueueDepth(queueDepth.getAsInt());
+        
+        Map<String, Long> durations = new LinkedHashMap<>();
+        for (Map.Entry<Timer, LongAdder> timer : timerNanos.entrySet()) {
+            durations.put(timer.getKey().name().toLowerCase(Locale.ROOT), TimeUnit.NANOSECONDS.toMillis(timer.getValue().sum()));
+        }
+        snapshot.setPhaseDurationsMs(durations);
+        
+        // Rates over the time since the job started; pages of a resumed job do not count
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        if (elapsedSeconds > 0) {
+            int newPages = pages - resumedPages;
+            snapshot.setPagesPerSecond(newPages / elapsedSeconds);
+            snapshot.setUsersPerSecond((users - resumedUsers) / elapsedSeconds);
+            if (status == IndexationStatus.Status.IN_PROGRESS && newPages > 0 && totalPages > 0) {
+                snapshot.setEtaSeconds(Math.round((totalPages - pages) * elapsedSeconds / newPages));
+            }
+        }
+        return snapshot;
+    }
+}
@@ -1,25 +1,86 @@
 package com.zouari.blog.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.zouari.blog.model.IncrementalUpdateResult;
 import com.zouari.blog.model.IndexationStatus;
 import com.zouari.blog.model.RandomUserResponse;
 import com.zouari.blog.model.User;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 @ApplicationScoped
 public class IndexationService {
     private static final Logger LOGGER = Logger.getLogger(IndexationService.class.getName());
     private static final int TOTAL_PAGES = 50;
     private static final int RESULTS_PER_PAGE = 100;
+    // Pages fetched in parallel, and the request rate allowed towards the API across all of them
+    private static final int FETCH_CONCURRENCY = Integer.getInteger("indexation.fetchConcurrency", 4);
+    private static final double FETCH_RATE_PER_SECOND = Double.parseDouble(System.getProperty("indexation.fetchRatePerSecond", "10"));
+    // Pages requested or fetched but not indexed yet; no further page is requested while it is full
+    private static final int FETCH_QUEUE_CAPACITY = Integer.getInteger("indexation.fetchQueueCapacity", 2 * FETCH_CONCURRENCY);
+    // How often the indexing loop, while waiting for a page, checks that the requests are still being sent
+    private static final long DISPATCHER_CHECK_INTERVAL_MS = 1000L;
+    // Users written to the index at a time by an NDJSON import
+    private static final int IMPORT_BATCH_SIZE = Integer.getInteger("indexation.importBatchSize", 1000);
+    private static final ObjectReader USER_READER = new ObjectMapper().readerFor(User.class);
+    // Retries of a failed page request, the first one after about retryBackoffMs and each next one twice later
+    private static final int MAX_RETRIES = Integer.getInteger("indexation.maxRetries", 3);
+    private static final long RETRY_BACKOFF_MS = Long.getLong("indexation.retryBackoffMs", 500L);
+    // Consecutive request failures after which requests fail fast, and for how long
+    private static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = Integer.getInteger("indexation.circuitBreaker.failureThreshold", 5);
+    private static final long CIRCUIT_BREAKER_OPEN_MS = Long.getLong("indexation.circuitBreaker.openMs", 30000L);
+    // Commit user data of an incomplete generation, telling a later run which pages it already holds
+    private static final String CHECKPOINT_PAGES = "indexation.completedPages";
+    private static final String CHECKPOINT_USERS = "indexation.indexedUsers";
+    private static final String CHECKPOINT_SEED = "indexation.seed";
+    // Asks the API for the same users on every run, which incremental updates need to find unchanged users
+    private static final String SEED = System.getProperty("indexation.seed");
+    // Minimum time between two status notifications, changes in between are coalesced
+    private static final long EVENTS_INTERVAL_MS = Long.getLong("indexation.events.intervalMs", 250L);
+    // Idle time after which listeners are checked, so that departed clients are noticed without a status change
+    private static final long EVENTS_HEARTBEAT_MS = Long.getLong("indexation.events.heartbeatMs", 15000L);
     
-    private volatile IndexationStatus currentStatus = new IndexationStatus(IndexationStatus.Status.NOT_STARTED);
+    private volatile IndexationProgress currentProgress = IndexationProgress.notStarted();
     private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final TokenBucketRateLimiter fetchRateLimiter = new TokenBucketRateLimiter(FETCH_RATE_PER_SECOND, FETCH_CONCURRENCY);
+    private final CircuitBreaker circuitBreaker =
+            new CircuitBreaker(CIRCUIT_BREAKER_FAILURE_THRESHOLD, CIRCUIT_BREAKER_OPEN_MS, TimeUnit.MILLISECONDS);
+    private final Set<IndexationStatusListener> statusListeners = new CopyOnWriteArraySet<>();
+    // Notifies the status listeners; created on the first subscription
+    private ScheduledExecutorService statusPublisher;
+    private IndexationProgress publishedProgress;
+    private long publishedUpdates;
+    private long publishedNanos;
     
     @Inject
     private RandomUserClient randomUserClient;
@@ -27,78 +88,459 @@ public class IndexationService {
     @Inject
     private LuceneIndexService luceneIndexService;
 
+    public IndexationService() {
+    }
+
+    IndexationService(RandomUserClient randomUserClient, LuceneIndexService luceneIndexService) {
+        this.randomUserClient = randomUserClient;
+        this.luceneIndexService = luceneIndexService;
+    }
+
     public synchronized boolean startIndexation() {
-        // Check if indexation is already in progress
-        if (currentStatus.getStatus() == IndexationStatus.Status.IN_PROGRESS) {
+        return startIndexation(false);
+    }
+
+    /**
+     * Starts a full reindex into a new generation, or with {@code incremental} an update of the
+     * live index that only writes the users that were added or changed upstream and deletes those
+     * that are gone.
+     */
+    public synchronized boolean startIndexation(boolean incremental) {
+        if (!claimJob(TOTAL_PAGES, incremental ? "Incremental update started" : "Indexation started")) {
             return false; // Cannot start, already running
         }
 
-        // Initialize new status
-        currentStatus = new IndexationStatus(IndexationStatus.Status.IN_PROGRESS);
-        currentStatus.setTotalPages(TOTAL_PAGES);
-        currentStatus.setProcessedPages(0);
-        currentStatus.setTotalUsers(0);
-        currentStatus.setStartTime(System.currentTimeMillis());
-        currentStatus.setMessage("Indexation started");
-
         // Submit async task
-        executorService.submit(this::performIndexation);
+        executorService.submit(() -> performIndexation(incremental));
 
         LOGGER.info("Started indexation job");
         return true;
     }
 
+    /**
+     * Indexes the users of an NDJSON stream (one JSON user per line, optionally gzip compressed)
+     * on the calling thread, in batches of {@code indexation.importBatchSize}. Like
+     * {@link #startIndexation(boolean)}, it replaces the index with a new generation, or with
+     * {@code incremental} updates the live one. It takes the same job slot as an indexation.
+     *
+     * @return the number of users imported
+     * @throws IllegalStateException if an indexation is already in progress
+     * @throws IllegalArgumentException if the stream contains no user
+     * @throws JsonProcessingException if a line is not a valid user. A full import then leaves the
+     *         live index untouched, while an incremental one keeps the batches written before it
+     */
+    public int importUsers(InputStream input, boolean incremental) throws IOException {
+        if (!claimJob(0, "Import started")) {
+            throw new IllegalStateException("Indexation already in progress. Please wait until it finishes.");
+        }
+        LOGGER.info("Started import job");
+        IndexationProgress progress = currentProgress;
+        
+        int importedUsers = 0;
+        int batches = 0;
+        try (MappingIterator<User> users = USER_READER.readValues(decompressIfGzip(input))) {
+            long started = System.nanoTime();
+            if (incremental) {
+                luceneIndexService.beginIncrementalUpdate();
+            } else {
+                luceneIndexService.beginReindex();
+            }
+            progress.addTime(IndexationProgress.Timer.PREPARING, System.nanoTime() - started);
+            progress.setPhase(IndexationStatus.Phase.INDEXING);
+            
+            List<User> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            while (users.hasNextValue()) {
+                batch.add(users.nextValue());
+                if (batch.size() == IMPORT_BATCH_SIZE || !users.hasNextValue()) {
+                    started = System.nanoTime();
+                    if (incremental) {
+                        luceneIndexService.upsertUsers(batch);
+                    } else {
+                        luceneIndexService.addUsersToReindex(batch);
+                    }
+                    progress.addTime(IndexationProgress.Timer.INDEXING, System.nanoTime() - started);
+                    importedUsers += batch.size();
+                    batches++;
+                    progress.recordProcessed(batches, importedUsers);
+                    progress.setMessage("Imported " + importedUsers + " users");
+                    batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                }
+            }
+            if (importedUsers == 0) {
+                // Do not replace the index with an empty one
+                throw new IllegalArgumentException("The import contains no users");
+            }
+            
+            progress.setPhase(IndexationStatus.Phase.COMMITTING);
+            started = System.nanoTime();
+            String message;
+            if (incremental) {
+                message = "Import completed successfully: " + luceneIndexService.completeIncrementalUpdate();
+            } else {
+                luceneIndexService.completeReindex();
+                message = "Import completed successfully. Total users indexed: " + importedUsers;
+            }
+            progress.addTime(IndexationProgress.Timer.COMMITTING, System.nanoTime() - started);
+            progress.complete(message);
+            LOGGER.info("Import job completed successfully");
+            return importedUsers;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.severe("Import job failed: " + e.getMessage());
+            if (incremental) {
+                abortIncrementalUpdateQuietly();
+            } else {
+                abortReindexQuietly();
+            }
+            progress.fail("Import failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the single job slot, unless a job is already in progress.
+     */
+    private synchronized boolean claimJob(int totalPages, String message) {
+        // Check if indexation is already in progress
+        if (currentProgress.isInProgress()) {
+            return false;
+        }
+
+        // Initialize new progress
+        currentProgress = new IndexationProgress(totalPages, message);
+        return true;
+    }
+
+    /**
+     * Subscribes to the status of the indexation jobs: the listener first receives the current
+     * status, then every change, coalesced to one notification per {@code indexation.events.intervalMs}.
+     * While nothing changes, it gets a heartbeat every {@code indexation.events.heartbeatMs}. It is
+     * unsubscribed when it throws.
+     */
+    public synchronized void addStatusListener(IndexationStatusListener listener) {
+        if (statusPublisher == null) {
+            statusPublisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "indexation-status-publisher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            statusPublisher.scheduleAtFixedRate(this::publishStatus, EVENTS_INTERVAL_MS, EVENTS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        // On the publisher thread, so that the listener never receives two statuses at once
+        statusPublisher.execute(() -> {
+            if (notifyStatusListener(listener, currentProgress.snapshot())) {
+                statusListeners.add(listener);
+            }
+        });
+    }
+
+    public void removeStatusListener(IndexationStatusListener listener) {
+        statusListeners.remove(listener);
+    }
+
+    private void publishStatus() {
+        IndexationProgress progress = currentProgress;
+        long updates = progress.getUpdates();
+        long now = System.nanoTime();
+        if (progress == publishedProgress && updates == publishedUpdates) {
+            if (now - publishedNanos >= TimeUnit.MILLISECONDS.toNanos(EVENTS_HEARTBEAT_MS)) {
+                publishedNanos = now;
+                for (IndexationStatusListener listener : statusListeners) {
+                    try {
+                        listener.onHeartbeat();
+                    } catch (RuntimeException e) {
+                        LOGGER.fine("Removing indexation status listener: " + e.getMessage());
+                        statusListeners.remove(listener);
+                    }
+                }
+            }
+            return;
+        }
+        publishedProgress = progress;
+        publishedUpdates = updates;
+        publishedNanos = now;
+        if (statusListeners.isEmpty()) {
+            return;
+        }
+        IndexationStatus status = progress.snapshot();
+        for (IndexationStatusListener listener : statusListeners) {
+            if (!notifyStatusListener(listener, status)) {
+                statusListeners.remove(listener);
+            }
+        }
+    }
+
+    private static boolean notifyStatusListener(IndexationStatusListener listener, IndexationStatus status) {
+        try {
+            listener.onStatus(status);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.fine("Removing indexation status listener: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        executorService.shutdownNow();
+        if (statusPublisher != null) {
+            statusPublisher.shutdownNow();
+        }
+    }
+
+    private static InputStream decompressIfGzip(InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input);
+        buffered.mark(2);
+        boolean gzip = buffered.read() == 0x1f && buffered.read() == 0x8b;
+        buffered.reset();
+        return gzip ? new GZIPInputStream(buffered) : buffered;
+    }
+
+    /**
+     * A snapshot of the progress of the current or last job, built anew on every call.
+     */
     public IndexationStatus getStatus() {
-        return currentStatus;
+        return currentProgress.snapshot();
     }
 
-    private void performIndexation() {
-        List<User> allUsers = new ArrayList<>();
+    private void performIndexation(boolean incremental) {
+        BlockingQueue<FetchedPage> fetchedPages = new ArrayBlockingQueue<>(FETCH_QUEUE_CAPACITY);
+        Semaphore queueSlots = new Semaphore(FETCH_QUEUE_CAPACITY);
+        ExecutorService fetchExecutor = Executors.newSingleThreadExecutor();
+        Set<Integer> completedPages = new TreeSet<>();
+        int failedPages = 0;
+        int indexedUsers = 0;
+        IndexationProgress progress = currentProgress;
+        long bytesAtStart = randomUserClient.getBytesReceived();
+        progress.setBytesDownloaded(() -> randomUserClient.getBytesReceived() - bytesAtStart);
+        progress.setQueueDepth(fetchedPages::size);
         
         try {
-            // Clear existing index before starting
-            luceneIndexService.clearIndex();
+            long started = System.nanoTime();
+            if (incremental) {
+                luceneIndexService.beginIncrementalUpdate();
+            } else {
+                Map<String, String> checkpoint = luceneIndexService.resumeReindex();
+                if (checkpoint != null && checkpoint.containsKey(CHECKPOINT_PAGES)
+                        && checkpoint.getOrDefault(CHECKPOINT_SEED, "").equals(SEED != null ? SEED : "")) {
+                    // Carry on with the generation a previous run left incomplete
+                    completedPages.addAll(parsePages(checkpoint.get(CHECKPOINT_PAGES)));
+                    indexedUsers = Integer.parseInt(checkpoint.getOrDefault(CHECKPOINT_USERS, "0"));
+                    progress.recordResumed(completedPages.size(), indexedUsers);
+                    LOGGER.info("Resuming indexation, " + completedPages.size() + " pages already indexed");
+                } else {
+                    // Build a new generation of the index, searches keep using the current one meanwhile
+                    luceneIndexService.beginReindex();
+                }
+            }
+            progress.addTime(IndexationProgress.Timer.PREPARING, System.nanoTime() - started);
+            progress.setPhase(IndexationStatus.Phase.INDEXING);
             
-            // Fetch users from all pages
+            // Fetch users from the remaining pages, in any order
+            List<Integer> remainingPages = new ArrayList<>();
             for (int page = 1; page <= TOTAL_PAGES; page++) {
-                try {
-                    LOGGER.info("Fetching page " + page + " of " + TOTAL_PAGES);
-                    RandomUserResponse response = randomUserClient.fetchUsers(page, RESULTS_PER_PAGE);
-                    
-                    if (response != null && response.getResults() != null) {
-                        allUsers.addAll(response.getResults());
-                        
-                        // Update status
-                        currentStatus.setProcessedPages(page);
-                        currentStatus.setTotalUsers(allUsers.size());
-                        currentStatus.setMessage("Processing page " + page + " of " + TOTAL_PAGES);
-                    }
-                    
-                    // Small delay to avoid overwhelming the API
-                    Thread.sleep(100);
-                    
-                } catch (Exception e) {
-                    LOGGER.warning("Error fetching page " + page + ": " + e.getMessage());
-                    currentStatus.setMessage("Warning: Error fetching page " + page + " - " + e.getMessage());
+                if (!completedPages.contains(page)) {
+                    remainingPages.add(page);
+                }
+            }
+            Future<Void> dispatcher = fetchExecutor.submit(() -> requestPages(remainingPages, fetchedPages, queueSlots, progress));
+            
+            // Index each page as soon as it arrives; every request hands over exactly one page
+            for (int i = 0; i < remainingPages.size(); i++) {
+                started = System.nanoTime();
+                FetchedPage fetched = takeFetchedPage(fetchedPages, dispatcher);
+                queueSlots.release();
+                progress.addTime(IndexationProgress.Timer.WAITING_FOR_PAGES, System.nanoTime() - started);
+                if (fetched.users() == null) {
+                    failedPages++;
+                    continue;
                 }
+                started = System.nanoTime();
+                if (incremental) {
+                    luceneIndexService.upsertUsers(fetched.users());
+                } else {
+                    luceneIndexService.addUsersToReindex(fetched.users());
+                }
+                completedPages.add(fetched.page());
+                indexedUsers += fetched.users().size();
+                if (!incremental) {
+                    luceneIndexService.checkpointReindex(Map.of(
+                            CHECKPOINT_PAGES, formatPages(completedPages),
+                            CHECKPOINT_USERS, Integer.toString(indexedUsers),
+                            CHECKPOINT_SEED, SEED != null ? SEED : ""));
+                }
+                progress.addTime(IndexationProgress.Timer.INDEXING, System.nanoTime() - started);
+                progress.recordProcessed(completedPages.size(), indexedUsers);
+                progress.setMessage("Indexed " + completedPages.size() + " of " + TOTAL_PAGES + " pages");
+            }
+            
+            if (!incremental && failedPages > 0) {
+                // Keep the incomplete generation: the next run only fetches the missing pages
+                progress.fail("Indexation incomplete: " + failedPages + " pages could not be fetched. "
+                        + "Start the indexation again to fetch only the missing pages");
+                LOGGER.warning("Indexation job incomplete, " + failedPages + " pages failed");
+                return;
+            }
+            
+            progress.setPhase(IndexationStatus.Phase.COMMITTING);
+            started = System.nanoTime();
+            String message;
+            if (!incremental) {
+                luceneIndexService.completeReindex();
+                message = "Indexation completed successfully. Total users indexed: " + indexedUsers;
+            } else if (failedPages == 0) {
+                IncrementalUpdateResult result = luceneIndexService.completeIncrementalUpdate();
+                message = "Incremental update completed successfully: " + result;
+            } else {
+                // The users of a failed page would look deleted upstream: keep everything instead
+                luceneIndexService.abortIncrementalUpdate();
+                message = "Incremental update completed without deletions, " + failedPages + " pages failed";
             }
             
-            // Index all users
-            LOGGER.info("Indexing " + allUsers.size() + " users");
-            currentStatus.setMessage("Indexing " + allUsers.size() + " users");
-            luceneIndexService.indexUsers(allUsers);
+            progress.addTime(IndexationProgress.Timer.COMMITTING, System.nanoTime() - started);
             
             // Mark as completed
-            currentStatus.setStatus(IndexationStatus.Status.COMPLETED);
-            currentStatus.setEndTime(System.currentTimeMillis());
-            currentStatus.setMessage("Indexation completed successfully. Total users indexed: " + allUsers.size());
+            progress.complete(message);
             LOGGER.info("Indexation job completed successfully");
 
         } catch (Exception e) {
             LOGGER.severe("Indexation job failed: " + e.getMessage());
-            currentStatus.setStatus(IndexationStatus.Status.FAILED);
-            currentStatus.setEndTime(System.currentTimeMillis());
-            currentStatus.setMessage("Indexation failed: " + e.getMessage());
+            if (incremental) {
+                abortIncrementalUpdateQuietly();
+            } else {
+                abortReindexQuietly();
+            }
+            progress.fail("Indexation failed: " + e.getMessage());
+        } finally {
+            fetchExecutor.shutdownNow();
         }
     }
+
+    private void abortReindexQuietly() {
+        try {
+            luceneIndexService.abortReindex();
+        } catch (Exception e) {
+            LOGGER.warning("Failed to abort reindex: " + e.getMessage());
+        }
+    }
+
+    private void abortIncrementalUpdateQuietly() {
+        try {
+            luceneIndexService.abortIncrementalUpdate();
+        } catch (Exception e) {
+            LOGGER.warning("Failed to abort incremental update: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the next fetched page. Fails instead of waiting forever when the dispatcher stopped
+     * with an error, since the pages it did not request will never arrive.
+     */
+    private static FetchedPage takeFetchedPage(BlockingQueue<FetchedPage> fetchedPages, Future<Void> dispatcher)
+            throws InterruptedException, IOException {
+        while (true) {
+            FetchedPage fetched = fetchedPages.poll(DISPATCHER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            if (fetched != null) {
+                return fetched;
+            }
+            if (dispatcher.isDone()) {
+                try {
+                    dispatcher.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("Page requests stopped: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the request of every page without waiting for the responses, keeping at most
+     * {@code indexation.fetchConcurrency} requests in flight and {@code indexation.fetchQueueCapacity}
+     * pages not indexed yet. Each request hands one page over to the indexing loop, without users
+     * when it failed for good.
+     */
+    private Void requestPages(List<Integer> pages, BlockingQueue<FetchedPage> fetchedPages, Semaphore queueSlots,
+                              IndexationProgress progress) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(FETCH_CONCURRENCY);
+        for (int page : pages) {
+            queueSlots.acquire();
+            inFlight.acquire();
+            // Rate limit requests to avoid overwhelming the API
+            fetchRateLimiter.acquire();
+            
+            LOGGER.info("Fetching page " + page + " of " + TOTAL_PAGES);
+            fetchWithRetries(page, 0, progress).whenComplete((response, failure) -> {
+                inFlight.release();
+                List<User> users = null;
+                if (failure != null) {
+                    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    LOGGER.warning("Error fetching page " + page + ": " + cause.getMessage());
+                    progress.setMessage("Warning: Error fetching page " + page + " - " + cause.getMessage());
+                } else {
+                    progress.recordFetchedPage();
+                    users = response != null && response.getResults() != null ? response.getResults() : List.of();
+                }
+                // Never blocks, a queue slot was reserved before the request was sent
+                fetchedPages.add(new FetchedPage(page, users));
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Fetches a page, retrying failed requests after an exponential backoff with jitter. Requests
+     * fail fast without reaching the API while the circuit breaker is open.
+     */
+    private CompletableFuture<RandomUserResponse> fetchWithRetries(int page, int retry, IndexationProgress progress) {
+        if (!circuitBreaker.allowRequest()) {
+            return CompletableFuture.failedFuture(new IOException("Circuit breaker open after repeated failures of randomuser.me"));
+        }
+        CompletableFuture<RandomUserResponse> request;
+        try {
+            request = randomUserClient.fetchUsersAsync(page, RESULTS_PER_PAGE, SEED);
+        } catch (RuntimeException e) {
+            // Such as an invalid base URL: the page still fails like any request, and the breaker hears of it
+            request = CompletableFuture.failedFuture(e);
+        }
+        return request
+                .whenComplete((response, failure) -> {
+                    if (failure == null) {
+                        circuitBreaker.recordSuccess();
+                    } else {
+                        circuitBreaker.recordFailure();
+                        progress.recordFailedRequest();
+                    }
+                })
+                .exceptionallyCompose(failure -> {
+                    if (retry >= MAX_RETRIES || circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                        return CompletableFuture.failedFuture(failure);
+                    }
+                    long backoffMs = RETRY_BACKOFF_MS << retry;
+                    long delayMs = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+                    LOGGER.info("Retrying page " + page + " in " + delayMs + " ms");
+                    progress.recordRetriedRequest();
+                    Executor delayed = CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> { }, delayed)
+                            .thenCompose(ignored -> fetchWithRetries(page, retry + 1, progress));
+                });
+    }
+
+    private static String formatPages(Set<Integer> pages) {
+        return pages.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private static List<Integer> parsePages(String pages) {
+        List<Integer> parsed = new ArrayList<>();
+        for (String page : pages.split(",")) {
+            if (!page.isEmpty()) {
+                parsed.add(Integer.parseInt(page));
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * A page handed over by a request; {@code users} is null when the page could not be fetched.
+     */
+    private record FetchedPage(int page, List<User> users) {
+    }
 }
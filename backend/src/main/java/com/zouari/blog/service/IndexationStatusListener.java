@@ -0,0 +1,24 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.model.IndexationStatus;
+
+/**
+ * Receives the status of the indexation job whenever it changed, at most once per
+ * {@code indexation.events.intervalMs}. All calls come from the same thread.
+ */
+@FunctionalInterface
+public interface IndexationStatusListener {
+    /**
+     * @throws RuntimeException to unsubscribe, for example once the client went away
+     */
+    void onStatus(IndexationStatus status);
+
+    /**
+     * Called instead when the status did not change for {@code indexation.events.heartbeatMs}, so
+     * that a listener can find out it is no longer wanted while the job is idle.
+     *
+     * @throws RuntimeException to unsubscribe
+     */
+    default void onHeartbeat() {
+    }
+}
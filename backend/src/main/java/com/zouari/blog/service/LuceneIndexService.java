@@ -1,55 +1,197 @@
 package com.zouari.blog.service;
 
+import com.zouari.blog.model.IncrementalUpdateResult;
+import com.zouari.blog.model.SearchCacheStats;
+import com.zouari.blog.model.SearchMode;
+import com.zouari.blog.model.SearchPage;
+import com.zouari.blog.model.SearchRequest;
 import com.zouari.blog.model.User;
+import com.zouari.blog.model.UserFacet;
+import com.zouari.blog.model.UserField;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.core.LowerCaseFilter;
 import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.NGramTokenFilter;
 import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
-import org.apache.lucene.document.StringField;
-import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FuzzyQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.MultiCollectorManager;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.search.TopFieldCollectorManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.IOUtils;
 
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class LuceneIndexService {
     private static final Logger LOGGER = Logger.getLogger(LuceneIndexService.class.getName());
     private static final String INDEX_DIR = System.getProperty("java.io.tmpdir") + "/lucene-index";
+    // Each generation of the index lives in a numbered subdirectory; this file names the live one
+    private static final String LIVE_GENERATION_FILE = "live-generation";
+    // Substring search mode: index name n-grams and search them with term queries instead of "*name*"
+    private static final boolean NGRAM_INDEXING = Boolean.parseBoolean(System.getProperty("lucene.ngram.enabled", "true"));
+    private static final String FIRST_NAME_NGRAM = UserDocument.FIRST_NAME_NGRAM;
+    private static final String LAST_NAME_NGRAM = UserDocument.LAST_NAME_NGRAM;
+    private static final int MIN_GRAM = 1;
+    private static final int MAX_GRAM = 15;
+    // Relevance first, then uuid so that search-after cursors survive index refreshes
+    private static final Sort RELEVANCE_SORT = new Sort(SortField.FIELD_SCORE, new SortField("uuid", SortField.Type.STRING));
+    // Writer tuning: RAM buffered before a segment is flushed, and how often pending changes are
+    // committed (0 commits after every write, otherwise changes are only NRT-visible until then)
+    private static final double RAM_BUFFER_SIZE_MB = Double.parseDouble(System.getProperty("lucene.ramBufferSizeMb", "64"));
+    private static final long COMMIT_INTERVAL_MS = Long.getLong("lucene.commitIntervalMs", 5000L);
+    // Threads merging segments in the background, 0 lets Lucene pick from the core count
+    private static final int MERGE_THREADS = Integer.getInteger("lucene.mergeThreads", 0);
+    // Users per thread below which a batch is not worth splitting across the indexing threads
+    private static final int MIN_USERS_PER_INDEXING_THREAD = 500;
+    private static final long REFRESH_INTERVAL_MS = Long.getLong("lucene.refreshIntervalMs", 100L);
+    private static final long SEARCH_CACHE_MAX_ENTRIES = Long.getLong("search.cache.maxEntries", 10000L);
+    private static final long SEARCH_CACHE_TTL_SECONDS = Long.getLong("search.cache.ttlSeconds", 300L);
 
-    private FSDirectory directory;
+    private final DirectoryMode directoryMode;
+    // Threads building and adding documents of a large batch in parallel, each into its own segment
+    private final int indexingThreads;
+    private ExecutorService indexingExecutor;
+    private final Path indexPath;
     private Analyzer analyzer;
+    // Generation served to searches; replaced by the pending generation when a reindex completes
+    private volatile IndexGeneration liveGeneration;
+    private IndexGeneration pendingGeneration;
+    // Incremental update of the live generation in progress, if any
+    private IncrementalUpdate incrementalUpdate;
+    private ScheduledExecutorService maintenanceExecutor;
+    // Name completions of a recent snapshot of the live generation, rebuilt in the background
+    private volatile NameSuggester nameSuggester;
+    private final UserFacets userFacets = new UserFacets();
+    private ExecutorService suggesterExecutor;
+    private final AtomicBoolean suggesterRebuildScheduled = new AtomicBoolean();
+    // Serializes suggester builds without holding up the writes guarded by this service's monitor
+    private final Object suggesterLock = new Object();
+    private final SearchResultCache searchResultCache =
+            new SearchResultCache(SEARCH_CACHE_MAX_ENTRIES, Duration.ofSeconds(SEARCH_CACHE_TTL_SECONDS));
     private volatile boolean initialized = false;
+    // Serializes write batches and generation swaps; searches never take this lock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ThreadLocal<UserDocument> userDocuments = ThreadLocal.withInitial(() -> new UserDocument(NGRAM_INDEXING));
 
-    private synchronized void ensureInitialized() {
+    public LuceneIndexService() {
+        this(DirectoryMode.fromSystemProperty());
+    }
+
+    public LuceneIndexService(DirectoryMode directoryMode) {
+        this(directoryMode, Integer.getInteger("lucene.indexingThreads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    LuceneIndexService(DirectoryMode directoryMode, int indexingThreads) {
+        this(directoryMode, indexingThreads, Paths.get(INDEX_DIR));
+    }
+
+    /**
+     * Keeps the generations of a persistent {@code directoryMode} under {@code indexPath} instead
+     * of the application's index directory.
+     */
+    LuceneIndexService(DirectoryMode directoryMode, Path indexPath) {
+        this(directoryMode, Integer.getInteger("lucene.indexingThreads", Runtime.getRuntime().availableProcessors()), indexPath);
+    }
+
+    LuceneIndexService(DirectoryMode directoryMode, int indexingThreads, Path indexPath) {
+        this.directoryMode = directoryMode;
+        this.indexingThreads = Math.max(1, indexingThreads);
+        this.indexPath = indexPath;
+    }
+
+    private void ensureInitialized() {
+        if (!initialized) {
+            initialize();
+        }
+    }
+
+    private synchronized void initialize() {
         if (!initialized) {
             try {
-                Path indexPath = Paths.get(INDEX_DIR);
-                Files.createDirectories(indexPath);
-                this.directory = FSDirectory.open(indexPath);
+                if (directoryMode.isPersistent()) {
+                    Files.createDirectories(indexPath);
+                }
                 this.analyzer = createAnalyzer();
+                this.liveGeneration = openGeneration(readLiveGenerationNumber());
+                deleteStaleGenerations();
+                this.maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "lucene-index-maintenance");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                maintenanceExecutor.scheduleWithFixedDelay(this::refreshQuietly,
+                        REFRESH_INTERVAL_MS, REFRESH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (COMMIT_INTERVAL_MS > 0) {
+                    maintenanceExecutor.scheduleWithFixedDelay(this::commitQuietly,
+                            COMMIT_INTERVAL_MS, COMMIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                }
+                this.suggesterExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "lucene-name-suggester");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                if (indexingThreads > 1) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    // The calling thread indexes one partition itself
+                    this.indexingExecutor = Executors.newFixedThreadPool(indexingThreads - 1, runnable -> {
+                        Thread thread = new Thread(runnable, "lucene-indexer-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
                 this.initialized = true;
-                LOGGER.info("Lucene index initialized at: " + INDEX_DIR);
+                LOGGER.info("Lucene index initialized in " + directoryMode + " mode"
+                        + (directoryMode.isPersistent() ? " at: " + indexPath : ""));
             } catch (IOException e) {
                 LOGGER.severe("Failed to initialize Lucene index: " + e.getMessage());
                 throw new RuntimeException("Failed to initialize Lucene index", e);
@@ -57,148 +199,808 @@ public class LuceneIndexService {
         }
     }
 
+    private IndexGeneration openGeneration(long number) throws IOException {
+        IndexGeneration generation;
+        if (directoryMode.isPersistent()) {
+            Path generationPath = indexPath.resolve(Long.toString(number));
+            Files.createDirectories(generationPath);
+            generation = IndexGeneration.open(number, generationPath, directoryMode.open(generationPath), createWriterConfig());
+        } else {
+            generation = IndexGeneration.open(number, null, directoryMode.open(null), createWriterConfig());
+        }
+        generation.getSearcherManager().addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) {
+                if (didRefresh) {
+                    // Results of the previous reader can no longer be hit, free them right away
+                    searchResultCache.invalidateAll();
+                }
+            }
+        });
+        return generation;
+    }
+
+    private long readLiveGenerationNumber() throws IOException {
+        Path liveGenerationFile = indexPath.resolve(LIVE_GENERATION_FILE);
+        if (!directoryMode.isPersistent() || !Files.exists(liveGenerationFile)) {
+            return 1;
+        }
+        return Long.parseLong(Files.readString(liveGenerationFile).trim());
+    }
+
+    private void writeLiveGenerationNumber(long number) throws IOException {
+        if (!directoryMode.isPersistent()) {
+            return;
+        }
+        Path liveGenerationFile = indexPath.resolve(LIVE_GENERATION_FILE);
+        Path tempFile = indexPath.resolve(LIVE_GENERATION_FILE + ".tmp");
+        Files.writeString(tempFile, Long.toString(number));
+        Files.move(tempFile, liveGenerationFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deletes generations left behind by a swap that could not delete the previous generation.
+     * The generation following the live one is kept: it is an incomplete reindex that
+     * {@link #resumeReindex()} can carry on with.
+     */
+    private void deleteStaleGenerations() throws IOException {
+        if (!directoryMode.isPersistent()) {
+            return;
+        }
+        String live = Long.toString(liveGeneration.getNumber());
+        String next = Long.toString(liveGeneration.getNumber() + 1);
+        try (Stream<Path> paths = Files.list(indexPath)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.getFileName().toString();
+                if (Files.isDirectory(path) && name.chars().allMatch(Character::isDigit) && !name.equals(live) && !name.equals(next)) {
+                    IOUtils.rm(path);
+                }
+            }
+        }
+    }
+
+    private IndexWriterConfig createWriterConfig() {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        config.setRAMBufferSizeMB(RAM_BUFFER_SIZE_MB);
+        ConcurrentMergeScheduler mergeScheduler = new ConcurrentMergeScheduler();
+        if (MERGE_THREADS > 0) {
+            // A few merges may queue up before indexing threads are stalled
+            mergeScheduler.setMaxMergesAndThreads(MERGE_THREADS + 5, MERGE_THREADS);
+        }
+        config.setMergeScheduler(mergeScheduler);
+        return config;
+    }
+
     private Analyzer createAnalyzer() {
+        Analyzer defaultAnalyzer = createFoldingAnalyzer(false);
+        Analyzer ngramAnalyzer = createFoldingAnalyzer(true);
+        return new PerFieldAnalyzerWrapper(defaultAnalyzer, Map.of(
+                FIRST_NAME_NGRAM, ngramAnalyzer,
+                LAST_NAME_NGRAM, ngramAnalyzer));
+    }
+
+    private Analyzer createFoldingAnalyzer(boolean ngrams) {
         return new Analyzer() {
             @Override
             protected TokenStreamComponents createComponents(String fieldName) {
                 StandardTokenizer tokenizer = new StandardTokenizer();
                 TokenStream filter = new LowerCaseFilter(tokenizer);
                 filter = new ASCIIFoldingFilter(filter);
+                if (ngrams) {
+                    // Every infix of every name token, plus the token itself when it is longer than MAX_GRAM
+                    filter = new NGramTokenFilter(filter, MIN_GRAM, MAX_GRAM, true);
+                }
                 return new TokenStreamComponents(tokenizer, filter);
             }
         };
     }
 
-    public synchronized void indexUsers(List<User> users) throws IOException {
+    public void indexUsers(List<User> users) throws IOException {
         ensureInitialized();
-        IndexWriterConfig config = new IndexWriterConfig(analyzer);
-        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
         
-        try (IndexWriter writer = new IndexWriter(directory, config)) {
-            for (User user : users) {
-                Document doc = createDocument(user);
-                writer.addDocument(doc);
-            }
-            writer.commit();
-            LOGGER.info("Indexed " + users.size() + " users");
+        writeLock.lock();
+        try {
+            long start = System.nanoTime();
+            IndexGeneration live = liveGeneration;
+            addDocuments(live.getWriter(), users);
+            commitIfRequired(live);
+            live.getSearcherManager().maybeRefreshBlocking();
+            long elapsedNanos = Math.max(1, System.nanoTime() - start);
+            LOGGER.info("Indexed " + users.size() + " users in " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms ("
+                    + Math.round(users.size() * 1e9 / elapsedNanos) + " docs/s)");
+        } finally {
+            writeLock.unlock();
         }
     }
 
-    public synchronized void clearIndex() throws IOException {
+    /**
+     * Adds users to the index without committing or refreshing the searcher: meant for bulk loads
+     * that call {@link #commit()} once at the end. The background refresh still makes the
+     * documents searchable within {@code lucene.refreshIntervalMs}.
+     */
+    public void addUsers(List<User> users) throws IOException {
         ensureInitialized();
-        IndexWriterConfig config = new IndexWriterConfig(analyzer);
-        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
         
-        try (IndexWriter writer = new IndexWriter(directory, config)) {
-            writer.deleteAll();
-            writer.commit();
-            LOGGER.info("Index cleared");
+        writeLock.lock();
+        try {
+            addDocuments(liveGeneration.getWriter(), users);
+        } finally {
+            writeLock.unlock();
         }
     }
 
-    private Document createDocument(User user) {
-        Document doc = new Document();
+    public void clearIndex() throws IOException {
+        ensureInitialized();
         
-        if (user.getLogin() != null && user.getLogin().getUuid() != null) {
-            doc.add(new StringField("uuid", user.getLogin().getUuid(), Field.Store.YES));
+        writeLock.lock();
+        try {
+            IndexGeneration live = liveGeneration;
+            live.getWriter().deleteAll();
+            commitIfRequired(live);
+            live.getSearcherManager().maybeRefreshBlocking();
+            LOGGER.info("Index cleared");
+        } finally {
+            writeLock.unlock();
         }
+    }
+
+    /**
+     * Commits pending changes now and refreshes the searcher. Searches do not need the commit,
+     * they see changes as soon as the near-real-time searcher is refreshed; it makes them durable.
+     */
+    public void commit() throws IOException {
+        ensureInitialized();
         
-        if (user.getLogin() != null && user.getLogin().getUsername() != null) {
-            doc.add(new StringField("username", user.getLogin().getUsername(), Field.Store.YES));
+        writeLock.lock();
+        try {
+            IndexGeneration live = liveGeneration;
+            if (live.getWriter().hasUncommittedChanges()) {
+                live.getWriter().commit();
+            }
+            live.getSearcherManager().maybeRefreshBlocking();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Starts building a new, empty generation of the index next to the live one. Searches keep
+     * being served by the live generation until {@link #completeReindex()} swaps them.
+     */
+    public synchronized void beginReindex() throws IOException {
+        ensureInitialized();
+        if (incrementalUpdate != null) {
+            throw new IllegalStateException("Incremental update in progress");
+        }
+        if (pendingGeneration != null) {
+            pendingGeneration.discard();
+            pendingGeneration = null;
         }
         
-        if (user.getEmail() != null) {
-            doc.add(new StringField("email", user.getEmail(), Field.Store.YES));
+        long number = liveGeneration.getNumber() + 1;
+        if (directoryMode.isPersistent()) {
+            IOUtils.rm(indexPath.resolve(Long.toString(number)));
+        }
+        pendingGeneration = openGeneration(number);
+        LOGGER.info("Started reindex into generation " + number);
+    }
+
+    /**
+     * Returns to the generation an incomplete reindex left behind, still open in this process or,
+     * for persistent directory modes, on disk after a restart, so that the reindex can carry on
+     * with it. On disk, only the documents of its last {@link #checkpointReindex(Map) checkpoint}
+     * are kept.
+     *
+     * @return the data of the last checkpoint, or null when there is no reindex to resume
+     */
+    public synchronized Map<String, String> resumeReindex() throws IOException {
+        ensureInitialized();
+        if (incrementalUpdate != null) {
+            throw new IllegalStateException("Incremental update in progress");
         }
         
-        if (user.getName() != null) {
-            if (user.getName().getFirst() != null) {
-                doc.add(new TextField("firstName", user.getName().getFirst(), Field.Store.YES));
-            }
-            if (user.getName().getLast() != null) {
-                doc.add(new TextField("lastName", user.getName().getLast(), Field.Store.YES));
+        if (pendingGeneration == null) {
+            long number = liveGeneration.getNumber() + 1;
+            if (!directoryMode.isPersistent() || !Files.isDirectory(indexPath.resolve(Long.toString(number)))) {
+                return null;
             }
-            String fullName = (user.getName().getFirst() != null ? user.getName().getFirst() : "") + 
-                            " " + (user.getName().getLast() != null ? user.getName().getLast() : "");
-            doc.add(new TextField("fullName", fullName.trim(), Field.Store.YES));
+            pendingGeneration = openGeneration(number);
         }
         
-        if (user.getGender() != null) {
-            doc.add(new StringField("gender", user.getGender(), Field.Store.YES));
+        Map<String, String> checkpoint = new HashMap<>();
+        Iterable<Map.Entry<String, String>> commitData = pendingGeneration.getWriter().getLiveCommitData();
+        if (commitData != null) {
+            commitData.forEach(entry -> checkpoint.put(entry.getKey(), entry.getValue()));
         }
-        
-        if (user.getPhone() != null) {
-            doc.add(new StringField("phone", user.getPhone(), Field.Store.YES));
+        LOGGER.info("Resumed reindex into generation " + pendingGeneration.getNumber());
+        return checkpoint;
+    }
+
+    /**
+     * Commits the documents added to the reindex so far together with {@code checkpoint}, which
+     * {@link #resumeReindex()} returns if the reindex has to be resumed.
+     */
+    public synchronized void checkpointReindex(Map<String, String> checkpoint) throws IOException {
+        IndexWriter writer = requirePendingGeneration().getWriter();
+        writer.setLiveCommitData(new HashMap<>(checkpoint).entrySet());
+        writer.commit();
+    }
+
+    public synchronized void addUsersToReindex(List<User> users) throws IOException {
+        addDocuments(requirePendingGeneration().getWriter(), users);
+    }
+
+    /**
+     * Adds a document per user. Large batches are split into contiguous partitions indexed by
+     * {@code lucene.indexingThreads} threads at once: the writer gives each thread its own
+     * in-memory segment, so they neither contend nor wait for each other's flushes. The order of
+     * the documents in the index is then not the order of the users.
+     */
+    private void addDocuments(IndexWriter writer, List<User> users) throws IOException {
+        int partitions = Math.min(indexingThreads, users.size() / MIN_USERS_PER_INDEXING_THREAD);
+        if (partitions <= 1 || indexingExecutor == null) {
+            addDocuments(writer, users, 0, users.size());
+            return;
         }
         
-        if (user.getCell() != null) {
-            doc.add(new StringField("cell", user.getCell(), Field.Store.YES));
+        int partitionSize = (users.size() + partitions - 1) / partitions;
+        List<Future<?>> others = new ArrayList<>(partitions - 1);
+        for (int from = partitionSize; from < users.size(); from += partitionSize) {
+            int start = from;
+            int end = Math.min(from + partitionSize, users.size());
+            others.add(indexingExecutor.submit(() -> {
+                addDocuments(writer, users, start, end);
+                return null;
+            }));
+        }
+        IOException failure = null;
+        try {
+            addDocuments(writer, users, 0, partitionSize);
+        } catch (IOException | RuntimeException e) {
+            failure = e instanceof IOException ? (IOException) e : new IOException(e);
         }
+        // Wait for every partition, so that none is still adding documents once this returns
+        for (Future<?> partition : others) {
+            try {
+                partition.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new InterruptedIOException("Interrupted while indexing");
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void addDocuments(IndexWriter writer, List<User> users, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            writer.addDocument(createDocument(users.get(i)));
+        }
+    }
+
+    /**
+     * Commits the generation built since {@link #beginReindex()} and atomically makes it the live
+     * one. The previous generation is deleted once the searches still running on it complete.
+     */
+    public synchronized void completeReindex() throws IOException {
+        IndexGeneration completed = requirePendingGeneration();
+        completed.getWriter().commit();
+        completed.getSearcherManager().maybeRefreshBlocking();
         
-        if (user.getNat() != null) {
-            doc.add(new StringField("nationality", user.getNat(), Field.Store.YES));
+        writeLock.lock();
+        try {
+            writeLiveGenerationNumber(completed.getNumber());
+            IndexGeneration previous = liveGeneration;
+            liveGeneration = completed;
+            pendingGeneration = null;
+            searchResultCache.invalidateAll();
+            previous.retire();
+            LOGGER.info("Generation " + completed.getNumber() + " is now live");
+        } finally {
+            writeLock.unlock();
+        }
+        scheduleSuggesterRebuild();
+    }
+
+    /**
+     * Drops the generation being built, leaving the live generation untouched.
+     */
+    public synchronized void abortReindex() throws IOException {
+        if (pendingGeneration != null) {
+            IndexGeneration aborted = pendingGeneration;
+            pendingGeneration = null;
+            aborted.discard();
+            LOGGER.info("Aborted reindex into generation " + aborted.getNumber());
         }
+    }
+
+    /**
+     * Starts updating the live generation in place: users passed to {@link #upsertUsers(List)} are
+     * compared by uuid with the index as it is now, and users not passed before
+     * {@link #completeIncrementalUpdate()} are deleted. Searches see the changes as they are made.
+     */
+    public synchronized void beginIncrementalUpdate() throws IOException {
+        ensureInitialized();
+        if (pendingGeneration != null) {
+            // An incomplete reindex cannot be resumed once the live generation changed
+            pendingGeneration.discard();
+            pendingGeneration = null;
+        }
+        if (incrementalUpdate != null) {
+            incrementalUpdate.close();
+        }
+        incrementalUpdate = new IncrementalUpdate(acquireSearcher());
+        LOGGER.info("Started incremental update of generation " + liveGeneration.getNumber());
+    }
+
+    /**
+     * Adds the users that are new, replaces those whose content changed and leaves the others
+     * untouched. Users without a uuid cannot be matched and are skipped.
+     */
+    public synchronized void upsertUsers(List<User> users) throws IOException {
+        IncrementalUpdate update = requireIncrementalUpdate();
         
-        if (user.getLocation() != null) {
-            if (user.getLocation().getCity() != null) {
-                doc.add(new TextField("city", user.getLocation().getCity(), Field.Store.YES));
+        writeLock.lock();
+        try {
+            IndexWriter writer = liveGeneration.getWriter();
+            for (User user : users) {
+                if (user.getLogin() == null || user.getLogin().getUuid() == null) {
+                    continue;
+                }
+                String uuid = user.getLogin().getUuid();
+                update.markSeen(uuid);
+                
+                UserDocument userDocument = userDocuments.get();
+                Document doc = userDocument.fill(user);
+                int existing = update.findDocument(uuid);
+                if (existing < 0) {
+                    update.recordAdded();
+                } else if (Objects.equals(update.getContentHash(existing), userDocument.getContentHash())) {
+                    update.recordUnchanged();
+                    continue;
+                } else {
+                    update.recordUpdated();
+                }
+                // Also replaces a copy added since the update began
+                writer.updateDocument(new Term("uuid", uuid), doc);
             }
-            if (user.getLocation().getCountry() != null) {
-                doc.add(new TextField("country", user.getLocation().getCountry(), Field.Store.YES));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the users that were indexed when the update began but not passed to
+     * {@link #upsertUsers(List)} since, then commits and refreshes the searcher.
+     */
+    public synchronized IncrementalUpdateResult completeIncrementalUpdate() throws IOException {
+        IncrementalUpdate update = requireIncrementalUpdate();
+        try {
+            List<Term> unseen = update.unseenUuids();
+            
+            writeLock.lock();
+            try {
+                IndexGeneration live = liveGeneration;
+                live.getWriter().deleteDocuments(unseen.toArray(new Term[0]));
+                live.getWriter().commit();
+                live.getSearcherManager().maybeRefreshBlocking();
+            } finally {
+                writeLock.unlock();
             }
-            if (user.getLocation().getState() != null) {
-                doc.add(new TextField("state", user.getLocation().getState(), Field.Store.YES));
+            
+            IncrementalUpdateResult result = new IncrementalUpdateResult(
+                    update.getAdded(), update.getUpdated(), update.getUnchanged(), unseen.size());
+            LOGGER.info("Completed incremental update: " + result);
+            scheduleSuggesterRebuild();
+            return result;
+        } finally {
+            incrementalUpdate = null;
+            update.close();
+        }
+    }
+
+    /**
+     * Ends an incremental update without deleting anything. Users already upserted stay in the
+     * index: each of them is up to date, only the deletion of vanished users is skipped.
+     */
+    public synchronized void abortIncrementalUpdate() throws IOException {
+        if (incrementalUpdate != null) {
+            IncrementalUpdate aborted = incrementalUpdate;
+            incrementalUpdate = null;
+            aborted.close();
+            LOGGER.info("Aborted incremental update");
+        }
+    }
+
+    private IncrementalUpdate requireIncrementalUpdate() {
+        if (incrementalUpdate == null) {
+            throw new IllegalStateException("No incremental update in progress");
+        }
+        return incrementalUpdate;
+    }
+
+    private IndexGeneration requirePendingGeneration() {
+        if (pendingGeneration == null) {
+            throw new IllegalStateException("No reindex in progress");
+        }
+        return pendingGeneration;
+    }
+
+    private void commitIfRequired(IndexGeneration generation) throws IOException {
+        if (COMMIT_INTERVAL_MS <= 0) {
+            generation.getWriter().commit();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            liveGeneration.getSearcherManager().maybeRefresh();
+        } catch (AlreadyClosedException e) {
+            // The generation was swapped out concurrently, the next run refreshes the new one
+        } catch (Exception e) {
+            LOGGER.warning("Failed to refresh Lucene searcher: " + e.getMessage());
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (Exception e) {
+            LOGGER.warning("Failed to commit Lucene index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Acquires a searcher on the live generation, retrying when that generation is retired
+     * between reading the field and acquiring from its manager. Fails when the generation is
+     * still live, i.e. the service itself has been closed.
+     */
+    private IndexSearcher acquireSearcher() throws IOException {
+        while (true) {
+            IndexGeneration live = liveGeneration;
+            try {
+                return live.getSearcherManager().acquire();
+            } catch (AlreadyClosedException e) {
+                if (liveGeneration == live) {
+                    throw e;
+                }
+                // Swapped concurrently, retry on the new live generation
             }
         }
-        
-        return doc;
     }
 
-    public synchronized List<User> searchUsersByName(String name) throws IOException {
+    /**
+     * Same as {@link org.apache.lucene.search.SearcherManager#release}, which works whether or
+     * not the generation the searcher was acquired from has been retired since.
+     */
+    private void releaseSearcher(IndexSearcher searcher) throws IOException {
+        searcher.getIndexReader().decRef();
+    }
+
+    /**
+     * The document of {@code user}, built in the calling thread's reusable {@link UserDocument}:
+     * it is only valid until the next call on the same thread.
+     */
+    Document createDocument(User user) {
+        return userDocuments.get().fill(user);
+    }
+
+    /**
+     * Searches users whose first or last name contains {@code name}, returning the first
+     * {@link SearchRequest#DEFAULT_SIZE} hits.
+     */
+    public List<User> searchUsersByName(String name) throws IOException {
+        return searchUsers(new SearchRequest(name)).getUsers();
+    }
+
+    /**
+     * Searches one page of users whose first or last name contains the requested name, ordered by
+     * relevance. The next page starts after the request's {@code searchAfter} cursor, so paging
+     * deeper costs the same as the first page. Pages are served from the search result cache while
+     * the index does not change; the returned user lists are unmodifiable. When the request names
+     * {@link SearchRequest#getFields() fields}, hits are partial users read from doc values. When
+     * it names {@link SearchRequest#getFacets() facets}, the page also counts the values of these
+     * fields over all hits, collected in the same pass as the page.
+     *
+     * @throws IllegalArgumentException if the cursor is not one returned by a previous search
+     */
+    public SearchPage searchUsers(SearchRequest request) throws IOException {
+        return searchUsers(request, user -> {
+        });
+    }
+
+    /**
+     * Same as {@link #searchUsers(SearchRequest)}, additionally handing each user to
+     * {@code listener} as soon as it is loaded so that callers can write it out before the rest of
+     * the page is read. The searcher stays acquired until the listener has seen the whole page.
+     */
+    public SearchPage searchUsers(SearchRequest request, SearchHitListener listener) throws IOException {
         ensureInitialized();
+        String name = request.getName();
+        int size = Math.max(1, Math.min(request.getSize(), SearchRequest.MAX_SIZE));
+        FieldDoc after = request.getSearchAfter() != null ? SearchCursor.decode(request.getSearchAfter()) : null;
+        Set<UserField> fields = request.getFields() != null && !request.getFields().isEmpty()
+                ? EnumSet.copyOf(request.getFields())
+                : null;
+        Set<UserFacet> facets = request.getFacets() != null && !request.getFacets().isEmpty()
+                ? EnumSet.copyOf(request.getFacets())
+                : null;
         
-        // Check if index exists and has documents
-        if (!DirectoryReader.indexExists(directory)) {
-            throw new IllegalStateException("Index not created. Please create index first.");
-        }
-        
-        List<User> results = new ArrayList<>();
-        
-        try (IndexReader reader = DirectoryReader.open(directory)) {
-            if (reader.numDocs() == 0) {
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            if (searcher.getIndexReader().numDocs() == 0) {
                 throw new IllegalStateException("Index not created. Please create index first.");
             }
             
-            IndexSearcher searcher = new IndexSearcher(reader);
-            
-            // Create a wildcard query for partial matching
-            String queryString = "*" + name.toLowerCase() + "*";
-            
-            // Search in firstName and lastName fields
-            String[] fields = {"firstName", "lastName"};
-            MultiFieldQueryParser parser = new MultiFieldQueryParser(fields, analyzer);
-            parser.setAllowLeadingWildcard(true);
+            boolean fuzzy = request.getMode() == SearchMode.FUZZY;
+            List<String> tokens = NGRAM_INDEXING || fuzzy ? analyzeQuery(name) : null;
+            String normalizedQuery = tokens != null ? String.join(" ", tokens) : name.toLowerCase();
+            if (fuzzy) {
+                normalizedQuery = "~" + request.getMaxEdits() + "/" + request.getPrefixLength() + ":" + normalizedQuery;
+            }
+            String cacheKey = normalizedQuery + "|" + size + "|" + request.getSearchAfter() + "|" + fields + "|" + facets;
+            Object readerKey = searcher.getIndexReader().getReaderCacheHelper().getKey();
+            SearchPage cached = searchResultCache.get(readerKey, cacheKey);
+            if (cached != null) {
+                for (User user : cached.getUsers()) {
+                    listener.onHit(user);
+                }
+                return cached;
+            }
             
-            Query query = parser.parse(queryString);
+            Query query;
+            if (fuzzy) {
+                query = createFuzzyQuery(tokens, request.getMaxEdits(), request.getPrefixLength());
+            } else {
+                query = NGRAM_INDEXING ? createSubstringQuery(tokens) : createWildcardQuery(name);
+            }
             
-            TopDocs topDocs = searcher.search(query, 100); // Limit to 100 results
+            // Counts every hit instead of stopping at Lucene's default threshold, so totalHits is exact
+            TopFieldCollectorManager hitsManager = new TopFieldCollectorManager(RELEVANCE_SORT, size, after, Integer.MAX_VALUE);
+            TopDocs topDocs;
+            FacetsCollector facetsCollector = null;
+            if (facets != null) {
+                Object[] collected = searcher.search(query, new MultiCollectorManager(hitsManager, new FacetsCollectorManager()));
+                topDocs = (TopDocs) collected[0];
+                facetsCollector = (FacetsCollector) collected[1];
+            } else {
+                topDocs = searcher.search(query, hitsManager);
+            }
             
-            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-                Document doc = searcher.doc(scoreDoc.doc);
-                User user = convertDocumentToUser(doc);
-                results.add(user);
+            List<User> results;
+            if (fields != null) {
+                // Projection reads in document order, so the page is complete before it is handed out
+                results = UserProjection.project(searcher, topDocs.scoreDocs, fields);
+                for (User user : results) {
+                    listener.onHit(user);
+                }
+            } else {
+                results = new ArrayList<>();
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    Document doc = searcher.doc(scoreDoc.doc);
+                    User user = convertDocumentToUser(doc);
+                    listener.onHit(user);
+                    results.add(user);
+                }
             }
             
+            // A full page may be followed by more hits
+            String nextCursor = topDocs.scoreDocs.length == size
+                    ? SearchCursor.encode((FieldDoc) topDocs.scoreDocs[size - 1])
+                    : null;
+            
             LOGGER.info("Found " + results.size() + " users matching: " + name);
+            SearchPage page = new SearchPage(Collections.unmodifiableList(results), nextCursor, topDocs.totalHits.value);
+            if (facetsCollector != null) {
+                page.setFacets(Collections.unmodifiableMap(userFacets.count(searcher, facetsCollector, facets)));
+            }
+            searchResultCache.put(readerKey, cacheKey, page);
+            return page;
+        } catch (IllegalStateException e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.severe("Error searching users: " + e.getMessage());
             throw new IOException("Error searching users", e);
+        } finally {
+            releaseSearcher(searcher);
         }
+    }
+
+    /**
+     * Fails fast with the exceptions {@link #searchUsers(SearchRequest)} would throw before
+     * returning any hit, so that callers streaming the page can still answer with an error status.
+     *
+     * @throws IllegalArgumentException if the cursor is not one returned by a previous search
+     * @throws IllegalStateException if the index has not been created
+     */
+    public void checkSearchable(SearchRequest request) throws IOException {
+        ensureInitialized();
+        if (request.getSearchAfter() != null) {
+            SearchCursor.decode(request.getSearchAfter());
+        }
+        
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            if (searcher.getIndexReader().numDocs() == 0) {
+                throw new IllegalStateException("Index not created. Please create index first.");
+            }
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * Completes {@code prefix} into the {@code count} most common full names containing every
+     * word of the prefix, the last one being completed. Suggestions come from an in-memory
+     * suggester built after each reindex; while it is rebuilt for changes made since, the previous
+     * one still answers. The first call on an index without suggestions builds them.
+     */
+    public List<String> suggestNames(String prefix, int count) throws IOException {
+        ensureInitialized();
+        while (true) {
+            NameSuggester suggester = nameSuggester;
+            if (suggester == null) {
+                buildSuggester();
+                continue;
+            }
+            if (!suggester.tryIncRef()) {
+                // Replaced by a rebuild and closed since, retry on the new suggester
+                continue;
+            }
+            try {
+                boolean stale;
+                IndexSearcher searcher = acquireSearcher();
+                try {
+                    stale = !suggester.isBuiltFrom(searcher);
+                } finally {
+                    releaseSearcher(searcher);
+                }
+                if (stale && suggester.isEmpty()) {
+                    // Nothing to answer meanwhile, for instance right after the first indexation
+                    buildSuggester();
+                    continue;
+                }
+                if (stale) {
+                    scheduleSuggesterRebuild();
+                }
+                return suggester.lookup(prefix, count);
+            } finally {
+                suggester.decRef();
+            }
+        }
+    }
+
+    private void buildSuggester() throws IOException {
+        synchronized (suggesterLock) {
+            NameSuggester current = nameSuggester;
+            IndexSearcher searcher = acquireSearcher();
+            try {
+                if (current != null && current.isBuiltFrom(searcher)) {
+                    return;
+                }
+                long start = System.nanoTime();
+                NameSuggester rebuilt = NameSuggester.build(searcher, createFoldingAnalyzer(false));
+                nameSuggester = rebuilt;
+                LOGGER.info("Built name suggester in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                if (current != null) {
+                    // Closes once the lookups still running on it are done
+                    current.close();
+                }
+            } finally {
+                releaseSearcher(searcher);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the name suggester in the background, unless a rebuild is already waiting to run.
+     */
+    private void scheduleSuggesterRebuild() {
+        if (suggesterExecutor != null && suggesterRebuildScheduled.compareAndSet(false, true)) {
+            suggesterExecutor.execute(() -> {
+                suggesterRebuildScheduled.set(false);
+                try {
+                    buildSuggester();
+                } catch (Exception e) {
+                    if (!suggesterExecutor.isShutdown()) {
+                        LOGGER.warning("Failed to build name suggester: " + e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    public SearchCacheStats getSearchCacheStats() {
+        return searchResultCache.getStats();
+    }
+
+    private Query createWildcardQuery(String name) throws Exception {
+        // Create a wildcard query for partial matching
+        String queryString = "*" + name.toLowerCase() + "*";
         
-        return results;
+        // Search in firstName and lastName fields
+        String[] fields = {"firstName", "lastName"};
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(fields, analyzer);
+        parser.setAllowLeadingWildcard(true);
+        
+        return parser.parse(queryString);
+    }
+
+    /**
+     * Splits a query into tokens lowercased and ASCII-folded like the indexed names.
+     */
+    private List<String> analyzeQuery(String name) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream("firstName", name)) {
+            CharTermAttribute termAttribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(termAttribute.toString());
+            }
+            stream.end();
+        }
+        return tokens;
     }
 
-    private User convertDocumentToUser(Document doc) {
+    /**
+     * Builds the n-gram equivalent of {@code *name*} on firstName/lastName: each query token must
+     * be an infix of a name token. Tokens up to MAX_GRAM characters are a single term lookup;
+     * longer tokens require all of their MAX_GRAM-long grams.
+     */
+    private Query createSubstringQuery(List<String> tokens) {
+        if (tokens.isEmpty()) {
+            return new MatchNoDocsQuery("No searchable token");
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String token : tokens) {
+            builder.add(createInfixQuery(FIRST_NAME_NGRAM, token), BooleanClause.Occur.SHOULD);
+            builder.add(createInfixQuery(LAST_NAME_NGRAM, token), BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Matches names with a token within {@code maxEdits} of a query token. The names are the
+     * ASCII-folded terms of firstName/lastName, so accents never count as edits. Each
+     * FuzzyQuery intersects a Levenshtein automaton with the term dictionary (an FST), only
+     * visiting terms that share the first {@code prefixLength} characters.
+     */
+    private Query createFuzzyQuery(List<String> tokens, int maxEdits, int prefixLength) {
+        if (tokens.isEmpty()) {
+            return new MatchNoDocsQuery("No searchable token");
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String token : tokens) {
+            builder.add(new FuzzyQuery(new Term("firstName", token), maxEdits, prefixLength), BooleanClause.Occur.SHOULD);
+            builder.add(new FuzzyQuery(new Term("lastName", token), maxEdits, prefixLength), BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    private Query createInfixQuery(String field, String token) {
+        if (token.length() <= MAX_GRAM) {
+            return new TermQuery(new Term(field, token));
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (int start = 0; start + MAX_GRAM <= token.length(); start++) {
+            builder.add(new TermQuery(new Term(field, token.substring(start, start + MAX_GRAM))), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    User convertDocumentToUser(Document doc) {
         User user = new User();
         
         // Set login information
@@ -239,8 +1041,27 @@ public class LuceneIndexService {
     @PreDestroy
     public void cleanup() {
         try {
-            if (directory != null) {
-                directory.close();
+            if (maintenanceExecutor != null) {
+                maintenanceExecutor.shutdownNow();
+            }
+            if (indexingExecutor != null) {
+                indexingExecutor.shutdownNow();
+            }
+            if (suggesterExecutor != null) {
+                suggesterExecutor.shutdownNow();
+            }
+            if (nameSuggester != null) {
+                nameSuggester.close();
+            }
+            if (pendingGeneration != null) {
+                pendingGeneration.close();
+            }
+            if (incrementalUpdate != null) {
+                incrementalUpdate.close();
+            }
+            if (liveGeneration != null) {
+                // Commits pending changes
+                liveGeneration.close();
             }
             LOGGER.info("Lucene index closed");
         } catch (IOException e) {
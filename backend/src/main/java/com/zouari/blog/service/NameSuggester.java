@@ -0,0 +1,206 @@
+package com.zouari.blog.service;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.suggest.InputIterator;
+import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.search.suggest.analyzing.AnalyzingInfixSuggester;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completions of the full names of one index snapshot, weighted by the number of users with that
+ * name. Every word of a name can be completed ("bro" suggests "Hans Bröcker"), ignoring case and
+ * accents. The suggester lives in memory and is rebuilt from the first and last name doc values
+ * when the index changes; it never reads stored documents.
+ *
+ * <p>Lookups hold a reference, taken with {@link #tryIncRef()}, so that a suggester replaced by a
+ * rebuild is only closed once the lookups still running on it are done.
+ */
+class NameSuggester implements Closeable {
+    // Prefixes shorter than this are looked up in an edge n-gram field, so one-letter prefixes stay fast
+    private static final int MIN_PREFIX_CHARS = 4;
+
+    private final Object readerKey;
+    private final AnalyzingInfixSuggester suggester;
+    // The reference of whoever publishes the suggester, plus one per lookup running on it
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    private NameSuggester(Object readerKey, AnalyzingInfixSuggester suggester) {
+        this.readerKey = readerKey;
+        this.suggester = suggester;
+    }
+
+    /**
+     * Builds the suggester of the names in {@code searcher}'s snapshot of the index.
+     */
+    static NameSuggester build(IndexSearcher searcher, Analyzer analyzer) throws IOException {
+        Map<String, Long> names = countFullNames(searcher);
+        // Commits and closes its writer once built: lookups only need the searcher
+        AnalyzingInfixSuggester suggester = new AnalyzingInfixSuggester(new ByteBuffersDirectory(), analyzer, analyzer,
+                MIN_PREFIX_CHARS, true, true, false, true);
+        try {
+            suggester.build(new NameIterator(names.entrySet().iterator()));
+        } catch (IOException | RuntimeException e) {
+            suggester.close();
+            throw e;
+        }
+        return new NameSuggester(searcher.getIndexReader().getReaderCacheHelper().getKey(), suggester);
+    }
+
+    /**
+     * Whether this suggester was built from the snapshot {@code searcher} reads.
+     */
+    boolean isBuiltFrom(IndexSearcher searcher) {
+        return readerKey == searcher.getIndexReader().getReaderCacheHelper().getKey();
+    }
+
+    /**
+     * Whether no name was indexed when this suggester was built.
+     */
+    boolean isEmpty() throws IOException {
+        return suggester.getCount() == 0;
+    }
+
+    /**
+     * The {@code count} most common full names containing every word of {@code prefix}, the last
+     * one being completed.
+     */
+    List<String> lookup(String prefix, int count) throws IOException {
+        if (isEmpty()) {
+            // An empty suggester has no searcher to look up
+            return List.of();
+        }
+        List<String> suggestions = new ArrayList<>(count);
+        for (Lookup.LookupResult result : suggester.lookup(prefix, count, true, false)) {
+            suggestions.add(result.key.toString());
+        }
+        return suggestions;
+    }
+
+    /**
+     * Takes a reference for a lookup, unless the suggester was already closed.
+     */
+    boolean tryIncRef() {
+        while (true) {
+            int count = refCount.get();
+            if (count <= 0) {
+                return false;
+            }
+            if (refCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a reference, closing the suggester with the last one.
+     */
+    void decRef() throws IOException {
+        if (refCount.decrementAndGet() == 0) {
+            suggester.close();
+        }
+    }
+
+    /**
+     * Releases the publisher's reference: the suggester closes once no lookup uses it any more.
+     */
+    @Override
+    public void close() throws IOException {
+        decRef();
+    }
+
+    /**
+     * Counts users per full name, pairing ordinals within each segment before materializing
+     * each distinct name once.
+     */
+    private static Map<String, Long> countFullNames(IndexSearcher searcher) throws IOException {
+        Map<String, Long> names = new HashMap<>();
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            SortedDocValues firstNames = DocValues.getSorted(leaf.reader(), "firstName");
+            SortedDocValues lastNames = DocValues.getSorted(leaf.reader(), "lastName");
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            Map<Long, Long> pairs = new HashMap<>();
+            for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                if (liveDocs != null && !liveDocs.get(doc)) {
+                    continue;
+                }
+                // -1 stands for a missing name
+                long first = firstNames.advanceExact(doc) ? firstNames.ordValue() : -1;
+                long last = lastNames.advanceExact(doc) ? lastNames.ordValue() : -1;
+                if (first >= 0 || last >= 0) {
+                    pairs.merge((first + 1) << 32 | (last + 1), 1L, Long::sum);
+                }
+            }
+            for (Map.Entry<Long, Long> pair : pairs.entrySet()) {
+                int first = (int) (pair.getKey() >>> 32) - 1;
+                int last = (int) (pair.getKey() & 0xFFFFFFFFL) - 1;
+                String fullName = ((first >= 0 ? firstNames.lookupOrd(first).utf8ToString() : "")
+                        + " " + (last >= 0 ? lastNames.lookupOrd(last).utf8ToString() : "")).trim();
+                names.merge(fullName, pair.getValue(), Long::sum);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Feeds each full name with its number of users as weight.
+     */
+    private static class NameIterator implements InputIterator {
+        private final Iterator<Map.Entry<String, Long>> names;
+        private long weight;
+
+        NameIterator(Iterator<Map.Entry<String, Long>> names) {
+            this.names = names;
+        }
+
+        @Override
+        public BytesRef next() {
+            if (!names.hasNext()) {
+                return null;
+            }
+            Map.Entry<String, Long> name = names.next();
+            weight = name.getValue();
+            return new BytesRef(name.getKey());
+        }
+
+        @Override
+        public long weight() {
+            return weight;
+        }
+
+        @Override
+        public BytesRef payload() {
+            return null;
+        }
+
+        @Override
+        public boolean hasPayloads() {
+            return false;
+        }
+
+        @Override
+        public Set<BytesRef> contexts() {
+            return null;
+        }
+
+        @Override
+        public boolean hasContexts() {
+            return false;
+        }
+    }
+}
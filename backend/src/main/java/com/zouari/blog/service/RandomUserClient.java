@@ -4,37 +4,173 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zouari.blog.model.RandomUserResponse;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 @ApplicationScoped
 public class RandomUserClient {
-    private static final String BASE_URL = "https://randomuser.me/api/";
+    // Points the client at another server speaking the same API, such as a local stand-in for load tests
+    private static final String DEFAULT_BASE_URL = System.getProperty("randomuser.baseUrl", "https://randomuser.me/api/");
+    // A slow or unresponsive server fails the request instead of stalling the indexation. The request
+    // timeout covers the whole exchange, from sending the request to the last byte of the body
+    private static final long CONNECT_TIMEOUT_MS = Long.getLong("randomuser.connectTimeoutMs", 5000L);
+    private static final long REQUEST_TIMEOUT_MS = Long.getLong("randomuser.requestTimeoutMs", 10000L);
+    private final String baseUrl;
+    private final long requestTimeoutMs;
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final LongAdder bytesReceived = new LongAdder();
 
     public RandomUserClient() {
-        this.httpClient = HttpClient.newHttpClient();
+        this(DEFAULT_BASE_URL);
+    }
+
+    RandomUserClient(String baseUrl) {
+        this(baseUrl, REQUEST_TIMEOUT_MS);
+    }
+
+    RandomUserClient(String baseUrl, long requestTimeoutMs) {
+        this.baseUrl = baseUrl;
+        this.requestTimeoutMs = requestTimeoutMs;
+        // HTTP/2 when the server supports it, so that concurrent page requests share one connection
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT_MS))
+                .build();
         this.objectMapper = new ObjectMapper();
     }
 
     public RandomUserResponse fetchUsers(int page, int results) throws IOException, InterruptedException {
-        String url = BASE_URL + "?results=" + results + "&page=" + page;
+        return fetchUsers(page, results, null);
+    }
+
+    /**
+     * Fetches one page of users. With a seed, the API returns the same users for the same page
+     * every time; without one, every call returns new random users.
+     */
+    public RandomUserResponse fetchUsers(int page, int results, String seed) throws IOException, InterruptedException {
+        try {
+            return fetchUsersAsync(page, results, seed).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Same as {@link #fetchUsers(int, int, String)} without holding the calling thread while the
+     * request is in flight. The future fails with the {@link IOException} the blocking call would
+     * throw, wrapped in an {@link UncheckedIOException}, including an {@link HttpTimeoutException}
+     * when the whole page is not received within {@code randomuser.requestTimeoutMs}.
+     */
+    public CompletableFuture<RandomUserResponse> fetchUsersAsync(int page, int results, String seed) {
+        CompletableFuture<HttpResponse<InputStream>> sent =
+                httpClient.sendAsync(createRequest(page, results, seed), HttpResponse.BodyHandlers.ofInputStream());
+        // The request's own timeout stops at the response headers, a server stalling in the body would block the read
+        return sent.thenApply(response -> {
+                    try {
+                        return readResponse(response);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .orTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(failure -> {
+                    if (!(failure instanceof TimeoutException)) {
+                        throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+                    }
+                    // Closing the body fails the read blocked on it
+                    sent.cancel(true);
+                    sent.thenAccept(response -> closeQuietly(response.body()));
+                    throw new UncheckedIOException(new HttpTimeoutException(
+                            "Page " + page + " not received within " + requestTimeoutMs + " ms"));
+                });
+    }
+
+    private HttpRequest createRequest(int page, int results, String seed) {
+        String url = baseUrl + "?results=" + results + "&page=" + page;
+        if (seed != null) {
+            url += "&seed=" + URLEncoder.encode(seed, StandardCharsets.UTF_8);
+        }
         
-        HttpRequest request = HttpRequest.newBuilder()
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
                 .GET()
                 .build();
+    }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() == 200) {
-            return objectMapper.readValue(response.body(), RandomUserResponse.class);
-        } else {
-            throw new IOException("Failed to fetch users. Status code: " + response.statusCode());
+    /**
+     * Parses the body as it is received, without first copying it into a String.
+     */
+    private RandomUserResponse readResponse(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream body = new CountingInputStream(response.body())) {
+            if (response.statusCode() == 200) {
+                return objectMapper.readValue(body, RandomUserResponse.class);
+            } else {
+                throw new IOException("Failed to fetch users. Status code: " + response.statusCode());
+            }
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // The exchange already failed
+        }
+    }
+
+    /**
+     * Bytes of response bodies received since this client was created.
+     */
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    private class CountingInputStream extends FilterInputStream {
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                bytesReceived.increment();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytesReceived.add(read);
+            }
+            return read;
         }
     }
 }
@@ -0,0 +1,39 @@
+package com.zouari.blog.service;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes the last hit of a page sorted by relevance then uuid into an opaque, URL-safe cursor,
+ * and back into the {@link FieldDoc} to search after. The uuid tie-breaker keeps cursors valid
+ * across index refreshes, when Lucene document ids may change.
+ */
+final class SearchCursor {
+
+    private SearchCursor() {
+    }
+
+    static String encode(FieldDoc lastHit) {
+        float score = (Float) lastHit.fields[0];
+        BytesRef uuid = (BytesRef) lastHit.fields[1];
+        // "-" marks a hit without uuid, any uuid is prefixed with "u"
+        String cursor = lastHit.doc + ":" + Integer.toHexString(Float.floatToIntBits(score)) + ":"
+                + (uuid == null ? "-" : "u" + uuid.utf8ToString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static FieldDoc decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+            int doc = Integer.parseInt(parts[0]);
+            float score = Float.intBitsToFloat(Integer.parseUnsignedInt(parts[1], 16));
+            BytesRef uuid = parts[2].startsWith("u") ? new BytesRef(parts[2].substring(1)) : null;
+            return new FieldDoc(doc, score, new Object[]{score, uuid});
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid searchAfter cursor", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.model.User;
+
+import java.io.IOException;
+
+/**
+ * Receives the users of a search page one at a time, in rank order, as soon as each is loaded
+ * from the index.
+ */
+@FunctionalInterface
+public interface SearchHitListener {
+    void onHit(User user) throws IOException;
+}
@@ -0,0 +1,54 @@
+package com.zouari.blog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.zouari.blog.model.SearchCacheStats;
+import com.zouari.blog.model.SearchPage;
+
+import java.time.Duration;
+
+/**
+ * Bounded cache of search result pages (W-TinyLFU eviction, expiry after write). Entries are keyed
+ * by the identity of the index reader they were computed on as well as the normalized query and
+ * paging parameters, so a result can never outlive the index state it came from; {@link #invalidateAll()} additionally
+ * drops the entries of previous readers as soon as the searcher is refreshed.
+ */
+public class SearchResultCache {
+    private final Cache<Key, SearchPage> cache;
+    private final boolean enabled;
+
+    public SearchResultCache(long maxEntries, Duration timeToLive) {
+        // Caffeine evicts asynchronously, so a zero-sized cache would still answer until eviction catches up
+        this.enabled = maxEntries > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+
+    public SearchPage get(Object readerKey, String normalizedQuery) {
+        return cache.getIfPresent(new Key(readerKey, normalizedQuery));
+    }
+
+    public void put(Object readerKey, String normalizedQuery, SearchPage page) {
+        if (!enabled) {
+            return;
+        }
+        cache.put(new Key(readerKey, normalizedQuery), page);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public SearchCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        return new SearchCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                stats.hitRate(), cache.estimatedSize());
+    }
+
+    private record Key(Object readerKey, String query) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.zouari.blog.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket shared by concurrent callers: permits refill continuously at a fixed rate and up
+ * to {@code burst} permits can be taken at once. A caller that finds the bucket empty reserves
+ * the next token and sleeps until it is due, so waiting callers are served in arrival order.
+ */
+public class TokenBucketRateLimiter {
+    private final double permitsPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+        tokens -= 1;
+        // A negative balance is the debt of callers already waiting for their token
+        return tokens >= 0 ? 0 : (long) (-tokens / permitsPerNano);
+    }
+}
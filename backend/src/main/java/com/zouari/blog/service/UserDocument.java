@@ -0,0 +1,306 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.model.User;
+import com.zouari.blog.model.UserFacet;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+
+import java.io.Reader;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Lucene document of a user, allocated once and refilled for every user: fields get their
+ * new values with {@code setStringValue}/{@code setBytesValue} and only the fields the user has
+ * are put back into the document. Bulk loads then allocate almost nothing per user.
+ *
+ * <p>Not thread-safe, and {@link #fill(User)} invalidates the previous document: each indexing
+ * thread keeps its own instance and hands the document to the writer before refilling it.
+ */
+class UserDocument {
+    static final String FIRST_NAME_NGRAM = "firstName.ngram";
+    static final String LAST_NAME_NGRAM = "lastName.ngram";
+    static final String CONTENT_HASH = "contentHash";
+    // Every facet dimension shares one sorted set field, so that a search counts them in one pass
+    static final String FACETS = FacetsConfig.DEFAULT_INDEX_FIELD_NAME;
+    // Bounds the encoded facet values kept per dimension; facet values are few in practice
+    private static final int MAX_CACHED_FACET_VALUES = 1024;
+
+    private final boolean ngramIndexing;
+    private final Document document = new Document();
+
+    // Plain fields of the StringField type: StringField itself encodes each new value into a new BytesRef
+    private final Field uuid = new Field("uuid", "", StringField.TYPE_STORED);
+    private final DocValuesValue uuidValue = new DocValuesValue(new SortedDocValuesField("uuid", new BytesRef()));
+    private final Field username = new Field("username", "", StringField.TYPE_STORED);
+    private final Field email = new Field("email", "", StringField.TYPE_STORED);
+    private final DocValuesValue emailValue = new DocValuesValue(new BinaryDocValuesField("email", new BytesRef()));
+    private final Field firstName = new TextField("firstName", "", Field.Store.YES);
+    private final DocValuesValue firstNameValue = new DocValuesValue(new SortedDocValuesField("firstName", new BytesRef()));
+    private final Field firstNameNgram = new TextField(FIRST_NAME_NGRAM, "", Field.Store.NO);
+    private final Field lastName = new TextField("lastName", "", Field.Store.YES);
+    private final DocValuesValue lastNameValue = new DocValuesValue(new SortedDocValuesField("lastName", new BytesRef()));
+    private final Field lastNameNgram = new TextField(LAST_NAME_NGRAM, "", Field.Store.NO);
+    // Indexed from a reader over a reused builder: "first last" is never materialized as a String
+    private final StringBuilder fullNameBuilder = new StringBuilder();
+    private final CharSequenceReader fullNameReader = new CharSequenceReader(fullNameBuilder);
+    private final Field fullName = new TextField("fullName", fullNameReader);
+    private final Field gender = new Field("gender", "", StringField.TYPE_STORED);
+    private final Field phone = new Field("phone", "", StringField.TYPE_STORED);
+    private final Field cell = new Field("cell", "", StringField.TYPE_STORED);
+    private final Field nationality = new Field("nationality", "", StringField.TYPE_STORED);
+    private final DocValuesValue nationalityValue = new DocValuesValue(new SortedDocValuesField("nationality", new BytesRef()));
+    private final Field city = new TextField("city", "", Field.Store.YES);
+    private final DocValuesValue cityValue = new DocValuesValue(new SortedDocValuesField("city", new BytesRef()));
+    private final Field country = new TextField("country", "", Field.Store.YES);
+    private final Field state = new TextField("state", "", Field.Store.YES);
+    private final Field contentHash = new NumericDocValuesField(CONTENT_HASH, 0L);
+    private final Map<UserFacet, DocValuesValue> facetValues = new EnumMap<>(UserFacet.class);
+    private final Map<UserFacet, Map<String, String>> encodedFacetValues = new EnumMap<>(UserFacet.class);
+
+    private final MessageDigest digest;
+    private final byte[] digestBytes;
+    private final BytesRefBuilder utf8 = new BytesRefBuilder();
+
+    UserDocument(boolean ngramIndexing) {
+        this.ngramIndexing = ngramIndexing;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        this.digestBytes = new byte[digest.getDigestLength()];
+        for (UserFacet facet : UserFacet.values()) {
+            facetValues.put(facet, new DocValuesValue(new SortedSetDocValuesField(FACETS, new BytesRef())));
+            encodedFacetValues.put(facet, new HashMap<>());
+        }
+    }
+
+    /**
+     * Refills the document with the values of {@code user}. The returned document is the same
+     * instance on every call.
+     */
+    Document fill(User user) {
+        document.clear();
+        digest.reset();
+
+        if (user.getLogin() != null && user.getLogin().getUuid() != null) {
+            add(uuid, user.getLogin().getUuid());
+            add(uuidValue, user.getLogin().getUuid());
+        }
+
+        if (user.getLogin() != null && user.getLogin().getUsername() != null) {
+            add(username, user.getLogin().getUsername());
+        }
+
+        if (user.getEmail() != null) {
+            add(email, user.getEmail());
+            add(emailValue, user.getEmail());
+        }
+
+        if (user.getName() != null) {
+            String first = user.getName().getFirst();
+            String last = user.getName().getLast();
+            if (first != null) {
+                add(firstName, first);
+                add(firstNameValue, first);
+                if (ngramIndexing) {
+                    add(firstNameNgram, first);
+                }
+            }
+            if (last != null) {
+                add(lastName, last);
+                add(lastNameValue, last);
+                if (ngramIndexing) {
+                    add(lastNameNgram, last);
+                }
+            }
+            fullNameBuilder.setLength(0);
+            fullNameBuilder.append(first != null ? first : "").append(' ').append(last != null ? last : "");
+            trim(fullNameBuilder);
+            fullNameReader.reset();
+            document.add(fullName);
+            hash(fullName.name(), fullNameBuilder);
+        }
+
+        if (user.getGender() != null) {
+            add(gender, user.getGender());
+            addFacet(UserFacet.GENDER, user.getGender());
+        }
+
+        if (user.getPhone() != null) {
+            add(phone, user.getPhone());
+        }
+
+        if (user.getCell() != null) {
+            add(cell, user.getCell());
+        }
+
+        if (user.getNat() != null) {
+            add(nationality, user.getNat());
+            add(nationalityValue, user.getNat());
+            addFacet(UserFacet.NATIONALITY, user.getNat());
+        }
+
+        if (user.getLocation() != null) {
+            if (user.getLocation().getCity() != null) {
+                add(city, user.getLocation().getCity());
+                add(cityValue, user.getLocation().getCity());
+            }
+            if (user.getLocation().getCountry() != null) {
+                add(country, user.getLocation().getCountry());
+                addFacet(UserFacet.COUNTRY, user.getLocation().getCountry());
+            }
+            if (user.getLocation().getState() != null) {
+                add(state, user.getLocation().getState());
+            }
+        }
+
+        contentHash.setLongValue(digestContentHash());
+        document.add(contentHash);
+        return document;
+    }
+
+    /**
+     * The content hash of the last filled user.
+     */
+    long getContentHash() {
+        return contentHash.numericValue().longValue();
+    }
+
+    private void add(Field field, String value) {
+        field.setStringValue(value);
+        document.add(field);
+        hash(field.name(), value);
+    }
+
+    private void add(DocValuesValue value, String text) {
+        value.bytes.copyChars(text);
+        value.field.setBytesValue(value.bytes.get());
+        document.add(value.field);
+    }
+
+    /**
+     * Adds {@code text} as a value of the facet dimension, encoded the way
+     * {@link FacetsConfig} does so that the facet module can count it.
+     * Encoded values are kept to avoid encoding the same few values again for every user.
+     */
+    private void addFacet(UserFacet facet, String text) {
+        if (text.isEmpty()) {
+            // Facet paths cannot have empty components
+            return;
+        }
+        Map<String, String> encoded = encodedFacetValues.get(facet);
+        String path = encoded.get(text);
+        if (path == null) {
+            path = FacetsConfig.pathToString(facet.getDimension(), text);
+            if (encoded.size() < MAX_CACHED_FACET_VALUES) {
+                encoded.put(text, path);
+            }
+        }
+        add(facetValues.get(facet), path);
+    }
+
+    /**
+     * Adds a value to the hash of every value indexed for the user, so that an incremental update
+     * can tell whether a user changed without loading its stored document. Each field with a
+     * string value contributes its name and value, in document order.
+     */
+    private void hash(String name, CharSequence value) {
+        update(name);
+        update(value);
+    }
+
+    private long digestContentHash() {
+        try {
+            digest.digest(digestBytes, 0, digestBytes.length);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << 8) | (digestBytes[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    private void update(CharSequence text) {
+        utf8.copyChars(text);
+        digest.update(utf8.bytes(), 0, utf8.length());
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Same as {@link String#trim()}, in place.
+     */
+    private static void trim(StringBuilder builder) {
+        int end = builder.length();
+        while (end > 0 && builder.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        builder.setLength(end);
+        int start = 0;
+        while (start < end && builder.charAt(start) <= ' ') {
+            start++;
+        }
+        builder.delete(0, start);
+    }
+
+    /**
+     * A doc values field with the buffer its UTF-8 value is encoded into.
+     */
+    private static class DocValuesValue {
+        final Field field;
+        final BytesRefBuilder bytes = new BytesRefBuilder();
+
+        DocValuesValue(Field field) {
+            this.field = field;
+        }
+    }
+
+    /**
+     * A reader over a character sequence that can be read again after {@link #reset()}.
+     */
+    private static class CharSequenceReader extends Reader {
+        private final CharSequence chars;
+        private int position;
+
+        CharSequenceReader(CharSequence chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= chars.length()) {
+                return -1;
+            }
+            int read = Math.min(length, chars.length() - position);
+            for (int i = 0; i < read; i++) {
+                buffer[offset + i] = chars.charAt(position++);
+            }
+            return read;
+        }
+
+        @Override
+        public void reset() {
+            position = 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
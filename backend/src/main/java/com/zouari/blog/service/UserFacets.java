@@ -0,0 +1,85 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.model.UserFacet;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts the values of facet dimensions over the hits gathered by a {@link FacetsCollector}, in
+ * one pass over the shared facet doc values field of the matching documents. The ordinal mapping
+ * of the field across segments is computed once per index snapshot and kept until the next one.
+ */
+class UserFacets {
+    // Every dimension is flat and single-valued, as the defaults assume
+    private static final FacetsConfig FACETS_CONFIG = new FacetsConfig();
+
+    private volatile ReaderState readerState;
+
+    /**
+     * Counts hits per value of each of {@code facets}, most frequent values first. Dimensions
+     * without any value, for instance in an index built before facets were indexed, count nothing.
+     */
+    Map<String, Map<String, Long>> count(IndexSearcher searcher, FacetsCollector hits, Set<UserFacet> facets) throws IOException {
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        SortedSetDocValuesReaderState state = getState(searcher.getIndexReader());
+        Facets facetCounts = state != null ? new SortedSetDocValuesFacetCounts(state, hits) : null;
+        for (UserFacet facet : facets) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            FacetResult result = facetCounts != null && state.getOrdRange(facet.getDimension()) != null
+                    ? facetCounts.getAllChildren(facet.getDimension())
+                    : null;
+            if (result != null) {
+                LabelAndValue[] labelValues = result.labelValues.clone();
+                Arrays.sort(labelValues, Comparator.comparingLong((LabelAndValue labelValue) -> labelValue.value.longValue())
+                        .reversed()
+                        .thenComparing(labelValue -> labelValue.label));
+                for (LabelAndValue labelValue : labelValues) {
+                    values.put(labelValue.label, labelValue.value.longValue());
+                }
+            }
+            counts.put(facet.getDimension(), values);
+        }
+        return counts;
+    }
+
+    private SortedSetDocValuesReaderState getState(IndexReader reader) throws IOException {
+        Object readerKey = reader.getReaderCacheHelper().getKey();
+        ReaderState current = readerState;
+        if (current != null && current.readerKey == readerKey) {
+            return current.state;
+        }
+        if (FieldInfos.getMergedFieldInfos(reader).fieldInfo(UserDocument.FACETS) == null) {
+            return null;
+        }
+        // Concurrent searches on a new snapshot may each compute it, the last one is kept
+        ReaderState computed = new ReaderState(readerKey, new DefaultSortedSetDocValuesReaderState(reader, FACETS_CONFIG));
+        readerState = computed;
+        return computed.state;
+    }
+
+    private static final class ReaderState {
+        final Object readerKey;
+        final SortedSetDocValuesReaderState state;
+
+        ReaderState(Object readerKey, SortedSetDocValuesReaderState state) {
+            this.readerKey = readerKey;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.model.User;
+import com.zouari.blog.model.UserField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds partial users for a page of hits from the columnar doc values of the requested fields,
+ * without decompressing the stored fields of each hit. Hits are visited in document order so that
+ * every doc values iterator only moves forward within its segment.
+ */
+final class UserProjection {
+
+    private UserProjection() {
+    }
+
+    static List<User> project(IndexSearcher searcher, ScoreDoc[] hits, Set<UserField> fields) throws IOException {
+        Integer[] byDoc = new Integer[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            byDoc[i] = i;
+        }
+        Arrays.sort(byDoc, Comparator.comparingInt(i -> hits[i].doc));
+        
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        User[] users = new User[hits.length];
+        LeafValues values = null;
+        for (int i : byDoc) {
+            int doc = hits[i].doc;
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+            if (values == null || values.leaf != leaf) {
+                values = new LeafValues(leaf, fields);
+            }
+            users[i] = values.read(doc - leaf.docBase);
+        }
+        return new ArrayList<>(Arrays.asList(users));
+    }
+
+    /**
+     * Doc values iterators of one segment. Fields that were not requested, or that the segment
+     * does not have, read as empty.
+     */
+    private static final class LeafValues {
+        private final LeafReaderContext leaf;
+        private final SortedDocValues uuid;
+        private final SortedDocValues firstName;
+        private final SortedDocValues lastName;
+        private final BinaryDocValues email;
+        private final SortedDocValues nationality;
+        private final SortedDocValues city;
+
+        LeafValues(LeafReaderContext leaf, Set<UserField> fields) throws IOException {
+            LeafReader reader = leaf.reader();
+            this.leaf = leaf;
+            this.uuid = DocValues.getSorted(reader, "uuid");
+            this.firstName = fields.contains(UserField.NAME) ? DocValues.getSorted(reader, "firstName") : null;
+            this.lastName = fields.contains(UserField.NAME) ? DocValues.getSorted(reader, "lastName") : null;
+            this.email = fields.contains(UserField.EMAIL) ? DocValues.getBinary(reader, "email") : null;
+            this.nationality = fields.contains(UserField.NATIONALITY) ? DocValues.getSorted(reader, "nationality") : null;
+            this.city = fields.contains(UserField.CITY) ? DocValues.getSorted(reader, "city") : null;
+        }
+
+        User read(int doc) throws IOException {
+            User user = new User();
+            
+            User.Login login = new User.Login();
+            login.setUuid(value(uuid, doc));
+            user.setLogin(login);
+            
+            if (firstName != null) {
+                User.Name name = new User.Name();
+                name.setFirst(value(firstName, doc));
+                name.setLast(value(lastName, doc));
+                user.setName(name);
+            }
+            if (email != null) {
+                user.setEmail(email.advanceExact(doc) ? email.binaryValue().utf8ToString() : null);
+            }
+            if (nationality != null) {
+                user.setNat(value(nationality, doc));
+            }
+            if (city != null) {
+                User.Location location = new User.Location();
+                location.setCity(value(city, doc));
+                user.setLocation(location);
+            }
+            return user;
+        }
+
+        private static String value(SortedDocValues values, int doc) throws IOException {
+            return values.advanceExact(doc) ? values.lookupOrd(values.ordValue()).utf8ToString() : null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.zouari.blog.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, 1, TimeUnit.MINUTES);
+        
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        assertTrue(circuitBreaker.allowRequest(), "A success should reset the failure count");
+        
+        circuitBreaker.recordFailure();
+        
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    void testLetsOneTrialThroughAfterOpenDuration() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50, TimeUnit.MILLISECONDS);
+        circuitBreaker.recordFailure();
+        
+        Thread.sleep(100);
+        
+        assertTrue(circuitBreaker.allowRequest());
+        assertFalse(circuitBreaker.allowRequest(), "Only one trial call at a time");
+        circuitBreaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    void testFailedTrialReopens() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50, TimeUnit.MILLISECONDS);
+        circuitBreaker.recordFailure();
+        Thread.sleep(100);
+        
+        assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordFailure();
+        
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest());
+    }
+}
@@ -0,0 +1,206 @@
+package com.zouari.blog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.zouari.blog.model.IndexationStatus;
+import com.zouari.blog.model.RandomUserResponse;
+import com.zouari.blog.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexationServiceTest {
+
+    private static final String USERS_NDJSON = """
+            {"name":{"first":"John","last":"Doe"},"email":"john.doe@example.com","login":{"uuid":"uuid-1"}}
+            {"name":{"first":"Jane","last":"Smith"},"email":"jane.smith@example.com","login":{"uuid":"uuid-2"}}
+
+            {"name":{"first":"Hans","last":"Bröcker"},"email":"hans.brocker@example.com","login":{"uuid":"uuid-3"},"unknown":1}
+            """;
+
+    private LuceneIndexService luceneIndexService;
+    private IndexationService indexationService;
+
+    @BeforeEach
+    void setUp() {
+        luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP);
+        indexationService = new IndexationService(new RandomUserClient(), luceneIndexService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        indexationService.shutdown();
+        luceneIndexService.cleanup();
+    }
+
+    @Test
+    void testImportNdjson() throws IOException {
+        int imported = indexationService.importUsers(ndjson(USERS_NDJSON), false);
+        
+        assertEquals(3, imported);
+        assertEquals(IndexationStatus.Status.COMPLETED, indexationService.getStatus().getStatus());
+        assertEquals(3, indexationService.getStatus().getTotalUsers());
+        assertEquals(1, luceneIndexService.searchUsersByName("bro").size());
+    }
+
+    @Test
+    void testImportGzipNdjson() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(USERS_NDJSON.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        int imported = indexationService.importUsers(new ByteArrayInputStream(compressed.toByteArray()), false);
+        
+        assertEquals(3, imported);
+        assertEquals(1, luceneIndexService.searchUsersByName("jane").size());
+    }
+
+    @Test
+    void testMalformedImportKeepsCurrentIndex() throws IOException {
+        indexationService.importUsers(ndjson(USERS_NDJSON), false);
+        
+        String malformed = """
+                {"name":{"first":"Emma","last":"Taylor"},"login":{"uuid":"uuid-5"}}
+                {"name":{"first":"Liam",
+                """;
+        assertThrows(JsonProcessingException.class, () -> indexationService.importUsers(ndjson(malformed), false));
+        
+        assertEquals(IndexationStatus.Status.FAILED, indexationService.getStatus().getStatus());
+        assertEquals(1, luceneIndexService.searchUsersByName("john").size());
+        assertTrue(luceneIndexService.searchUsersByName("emma").isEmpty());
+    }
+
+    @Test
+    void testStatusListenerReceivesCurrentStatusThenChanges() throws Exception {
+        BlockingQueue<IndexationStatus> statuses = new LinkedBlockingQueue<>();
+        indexationService.addStatusListener(statuses::add);
+        
+        assertEquals(IndexationStatus.Status.NOT_STARTED, statuses.poll(5, TimeUnit.SECONDS).getStatus());
+        
+        indexationService.importUsers(ndjson(USERS_NDJSON), false);
+        
+        // Changes are coalesced: the listener may or may not see the import in progress
+        IndexationStatus status;
+        do {
+            status = statuses.poll(5, TimeUnit.SECONDS);
+            assertNotNull(status);
+        } while (status.getStatus() == IndexationStatus.Status.IN_PROGRESS);
+        assertEquals(IndexationStatus.Status.COMPLETED, status.getStatus());
+        assertEquals(3, status.getTotalUsers());
+        // Nothing changed since
+        assertNull(statuses.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testEmptyImportShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> indexationService.importUsers(ndjson(""), false));
+    }
+
+    @Test
+    void testFailedPagesAreRetriedThenResumed() throws Exception {
+        // Page 7 fails on its first request and all its retries, then recovers
+        Set<Integer> requestedPages = ConcurrentHashMap.newKeySet();
+        AtomicInteger page7Failures = new AtomicInteger(4);
+        RandomUserClient client = new RandomUserClient() {
+            @Override
+            public CompletableFuture<RandomUserResponse> fetchUsersAsync(int page, int results, String seed) {
+                requestedPages.add(page);
+                if (page == 7 && page7Failures.getAndDecrement() > 0) {
+                    return CompletableFuture.failedFuture(new IOException("Status code: 503"));
+                }
+                RandomUserResponse response = new RandomUserResponse();
+                response.setResults(createPage(page, results));
+                return CompletableFuture.completedFuture(response);
+            }
+        };
+        indexationService.shutdown();
+        indexationService = new IndexationService(client, luceneIndexService);
+        
+        assertTrue(indexationService.startIndexation());
+        IndexationStatus status = awaitCompletion();
+        
+        assertEquals(IndexationStatus.Status.FAILED, status.getStatus());
+        assertEquals(49, status.getProcessedPages());
+        assertEquals(0, page7Failures.get());
+        assertEquals(49, status.getFetchedPages());
+        assertEquals(4, status.getFailedRequests());
+        assertEquals(3, status.getRetriedRequests());
+        
+        requestedPages.clear();
+        assertTrue(indexationService.startIndexation());
+        status = awaitCompletion();
+        
+        assertEquals(IndexationStatus.Status.COMPLETED, status.getStatus());
+        assertEquals(Set.of(7), requestedPages);
+        assertEquals(5000, status.getTotalUsers());
+        assertEquals(1, status.getFetchedPages());
+        assertEquals(IndexationStatus.Phase.FINISHED, status.getPhase());
+        assertEquals(100, luceneIndexService.searchUsersByName("resumed").size());
+    }
+
+    @Test
+    void testRequestsThrowingSynchronouslyFailTheirPages() throws Exception {
+        RandomUserClient client = new RandomUserClient() {
+            @Override
+            public CompletableFuture<RandomUserResponse> fetchUsersAsync(int page, int results, String seed) {
+                throw new IllegalArgumentException("Illegal character in authority");
+            }
+        };
+        indexationService.shutdown();
+        indexationService = new IndexationService(client, luceneIndexService);
+        
+        assertTrue(indexationService.startIndexation());
+        IndexationStatus status = awaitCompletion();
+        
+        assertEquals(IndexationStatus.Status.FAILED, status.getStatus());
+        assertEquals(0, status.getProcessedPages());
+        assertTrue(status.getFailedRequests() > 0);
+    }
+
+    private IndexationStatus awaitCompletion() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (indexationService.getStatus().getStatus() == IndexationStatus.Status.IN_PROGRESS) {
+            assertTrue(System.currentTimeMillis() < deadline, "Indexation did not complete in time");
+            Thread.sleep(10);
+        }
+        return indexationService.getStatus();
+    }
+
+    private static List<User> createPage(int page, int results) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < results; i++) {
+            User user = new User();
+            User.Name name = new User.Name();
+            name.setFirst("user-" + page + "-" + i);
+            name.setLast(page == 7 ? "Resumed" : "Test");
+            user.setName(name);
+            User.Login login = new User.Login();
+            login.setUuid("uuid-" + page + "-" + i);
+            user.setLogin(login);
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static InputStream ndjson(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,16 +1,30 @@
 package com.zouari.blog.service;
 
+import com.zouari.blog.model.IncrementalUpdateResult;
+import com.zouari.blog.model.SearchMode;
+import com.zouari.blog.model.SearchPage;
+import com.zouari.blog.model.SearchRequest;
 import com.zouari.blog.model.User;
+import com.zouari.blog.model.UserFacet;
+import com.zouari.blog.model.UserField;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -135,6 +149,19 @@ class LuceneIndexServiceTest {
         assertTrue(foundSmith);
     }
 
+    @Test
+    void testSearchUsersWithAccentedQuery() throws IOException {
+        List<User> users = createTestUsers();
+        luceneIndexService.indexUsers(users);
+        
+        // The query is folded like the indexed names, so "Bröc" and "broc" are equivalent
+        List<User> results = luceneIndexService.searchUsersByName("Bröc");
+        
+        assertEquals(1, results.size());
+        assertEquals("Bröcker", results.get(0).getName().getLast());
+        assertEquals(1, luceneIndexService.searchUsersByName("ocke").size());
+    }
+
     @Test
     void testSearchUsersNoResults() throws IOException {
         List<User> users = createTestUsers();
@@ -145,6 +172,396 @@ class LuceneIndexServiceTest {
         assertTrue(results.isEmpty());
     }
 
+    @Test
+    void testSearchSeesUsersIndexedAfterPreviousSearch() throws IOException {
+        List<User> users = createTestUsers();
+        luceneIndexService.indexUsers(users.subList(0, 2));
+        
+        assertTrue(luceneIndexService.searchUsersByName("Bro").isEmpty());
+        
+        // The shared searcher must be refreshed by the next commit
+        luceneIndexService.indexUsers(users.subList(2, users.size()));
+        
+        assertEquals(1, luceneIndexService.searchUsersByName("Bro").size());
+    }
+
+    @Test
+    void testSearchAfterCleanupShouldThrowException() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        luceneIndexService.cleanup();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertThrows(IllegalStateException.class,
+                    () -> luceneIndexService.searchUsers(new SearchRequest("john")));
+        });
+    }
+
+    @Test
+    void testSearchPagesWithCursor() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        
+        SearchRequest request = new SearchRequest("john");
+        request.setSize(1);
+        SearchPage firstPage = luceneIndexService.searchUsers(request);
+        
+        assertEquals(1, firstPage.getUsers().size());
+        assertEquals(2, firstPage.getTotalHits());
+        assertNotNull(firstPage.getNextCursor());
+        
+        request.setSearchAfter(firstPage.getNextCursor());
+        SearchPage secondPage = luceneIndexService.searchUsers(request);
+        
+        assertEquals(1, secondPage.getUsers().size());
+        assertNotEquals(firstPage.getUsers().get(0).getLogin().getUuid(), secondPage.getUsers().get(0).getLogin().getUuid());
+        
+        request.setSearchAfter(secondPage.getNextCursor());
+        SearchPage lastPage = luceneIndexService.searchUsers(request);
+        
+        assertTrue(lastPage.getUsers().isEmpty());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void testSearchWithInvalidCursorShouldThrowException() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        
+        SearchRequest request = new SearchRequest("john");
+        request.setSearchAfter("not-a-cursor");
+        
+        assertThrows(IllegalArgumentException.class, () -> luceneIndexService.searchUsers(request));
+    }
+
+    @Test
+    void testSearchProjectsRequestedFieldsFromDocValues() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        
+        SearchRequest request = new SearchRequest("bro");
+        request.setFields(EnumSet.of(UserField.NAME, UserField.EMAIL));
+        List<User> results = luceneIndexService.searchUsers(request).getUsers();
+        
+        assertEquals(1, results.size());
+        User user = results.get(0);
+        assertEquals("uuid-3", user.getLogin().getUuid());
+        assertEquals("Hans", user.getName().getFirst());
+        assertEquals("Bröcker", user.getName().getLast());
+        assertNotNull(user.getEmail());
+        assertNull(user.getLogin().getUsername());
+        assertNull(user.getPhone());
+        assertNull(user.getLocation());
+    }
+
+    @Test
+    void testSearchCountsFacetsOverAllHits() throws IOException {
+        List<User> users = createTestUsers();
+        String[][] facetValues = {{"male", "US", "United States"}, {"female", "GB", "United Kingdom"},
+                {"male", "DE", "Germany"}, {"male", "GB", null}};
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setGender(facetValues[i][0]);
+            users.get(i).setNat(facetValues[i][1]);
+            if (facetValues[i][2] != null) {
+                User.Location location = new User.Location();
+                location.setCountry(facetValues[i][2]);
+                users.get(i).setLocation(location);
+            }
+        }
+        luceneIndexService.indexUsers(users);
+        
+        // The page holds one user, the counts cover both Johns
+        SearchRequest request = new SearchRequest("jo");
+        request.setSize(1);
+        request.setFacets(EnumSet.of(UserFacet.GENDER, UserFacet.NATIONALITY, UserFacet.COUNTRY));
+        SearchPage page = luceneIndexService.searchUsers(request);
+        
+        assertEquals(1, page.getUsers().size());
+        assertEquals(Map.of("male", 2L), page.getFacets().get("gender"));
+        assertEquals(List.of("GB", "US"), new ArrayList<>(page.getFacets().get("nationality").keySet()));
+        assertEquals(Map.of("United States", 1L), page.getFacets().get("country"));
+        
+        request = new SearchRequest("h");
+        request.setFacets(EnumSet.of(UserFacet.GENDER));
+        // Most frequent values first
+        assertEquals(List.of("male", "female"), new ArrayList<>(luceneIndexService.searchUsers(request).getFacets().get("gender").keySet()));
+        assertNull(luceneIndexService.searchUsers(new SearchRequest("jo")).getFacets());
+    }
+
+    @Test
+    void testTotalHitsCountsEveryMatch() throws IOException {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            User user = new User();
+            User.Name name = new User.Name();
+            name.setFirst("User" + i);
+            // Later users score lower, so Lucene could skip them once the page is settled
+            name.setLast(i < 1000 ? "Many" : "Many Of The Lower Scored Users");
+            user.setName(name);
+            user.setGender("female");
+            User.Login login = new User.Login();
+            login.setUuid("uuid-" + i);
+            user.setLogin(login);
+            users.add(user);
+        }
+        
+        LuceneIndexService service = new LuceneIndexService(DirectoryMode.HEAP, 1);
+        try {
+            service.indexUsers(users);
+            
+            // More matches than Lucene counts exactly by default
+            SearchRequest request = new SearchRequest("many");
+            request.setSize(10);
+            assertEquals(1500, service.searchUsers(request).getTotalHits());
+            
+            request.setFacets(EnumSet.of(UserFacet.GENDER));
+            SearchPage page = service.searchUsers(request);
+            assertEquals(1500, page.getTotalHits());
+            assertEquals(Map.of("female", 1500L), page.getFacets().get("gender"));
+        } finally {
+            service.cleanup();
+        }
+    }
+
+    @Test
+    void testSearchHandsHitsToListenerInRankOrder() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        
+        List<User> streamed = new ArrayList<>();
+        SearchPage page = luceneIndexService.searchUsers(new SearchRequest("john"), streamed::add);
+        
+        assertEquals(page.getUsers(), streamed);
+        
+        // A cached page is handed over too
+        List<User> streamedFromCache = new ArrayList<>();
+        luceneIndexService.searchUsers(new SearchRequest("john"), streamedFromCache::add);
+        
+        assertEquals(page.getUsers(), streamedFromCache);
+    }
+
+    @Test
+    void testFuzzySearchToleratesTypos() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        
+        SearchRequest request = new SearchRequest("Jonh");
+        assertTrue(luceneIndexService.searchUsers(request).getUsers().isEmpty());
+        
+        request.setMode(SearchMode.FUZZY);
+        List<User> results = luceneIndexService.searchUsers(request).getUsers();
+        // "Jane" is two substitutions away; the closer match ranks first
+        assertEquals(2, results.size());
+        assertEquals("John", results.get(0).getName().getFirst());
+        
+        request.setMaxEdits(1);
+        assertEquals(1, luceneIndexService.searchUsers(request).getUsers().size());
+        
+        // Accents are folded before edits are counted
+        request = new SearchRequest("Brocker");
+        request.setMode(SearchMode.FUZZY);
+        request.setMaxEdits(0);
+        assertEquals("Bröcker", luceneIndexService.searchUsers(request).getUsers().get(0).getName().getLast());
+    }
+
+    @Test
+    void testSuggestNamesCompletesAnyWord() throws IOException {
+        assertTrue(luceneIndexService.suggestNames("jo", 10).isEmpty());
+        
+        List<User> users = createTestUsers();
+        luceneIndexService.beginReindex();
+        luceneIndexService.addUsersToReindex(users);
+        luceneIndexService.addUsersToReindex(users.subList(0, 1));
+        luceneIndexService.completeReindex();
+        
+        // Two users named John Doe weigh more than one Johnny Walker
+        assertEquals(List.of("John Doe", "Johnny Walker"), luceneIndexService.suggestNames("jo", 10));
+        assertEquals(List.of("Hans Bröcker"), luceneIndexService.suggestNames("bro", 10));
+        assertEquals(List.of("Johnny Walker"), luceneIndexService.suggestNames("johnny wa", 10));
+        assertEquals(1, luceneIndexService.suggestNames("j", 1).size());
+    }
+
+    @Test
+    void testSuggestionsStayAvailableWhileRebuilt() throws Exception {
+        List<User> users = createTestUsers();
+        luceneIndexService.indexUsers(users);
+        assertEquals(List.of("John Doe"), luceneIndexService.suggestNames("doe", 10));
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Integer>> lookups = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                lookups.add(executor.submit(() -> {
+                    int answered = 0;
+                    for (int j = 0; j < 2000; j++) {
+                        // Each refresh makes the suggester stale, so lookups overlap its rebuilds
+                        assertEquals(List.of("John Doe"), luceneIndexService.suggestNames("doe", 10));
+                        answered++;
+                    }
+                    return answered;
+                }));
+            }
+            for (int i = 0; i < 200; i++) {
+                luceneIndexService.indexUsers(users.subList(1, 2));
+            }
+            
+            for (Future<Integer> lookup : lookups) {
+                assertEquals(2000, lookup.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCheckSearchableOnEmptyIndexShouldThrowException() {
+        assertThrows(IllegalStateException.class, () -> luceneIndexService.checkSearchable(new SearchRequest("john")));
+    }
+
+    @Test
+    void testIncrementalUpdateWritesOnlyChangedUsers() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        
+        List<User> upstream = createTestUsers();
+        User jane = upstream.get(1);
+        jane.setEmail("jane.smith@example.org");
+        User newUser = upstream.get(3);
+        newUser.getLogin().setUuid("uuid-5");
+        // Hans (uuid-3) is no longer upstream, Johnny (uuid-4) came back as uuid-5
+        upstream.remove(2);
+        
+        luceneIndexService.beginIncrementalUpdate();
+        luceneIndexService.upsertUsers(upstream);
+        IncrementalUpdateResult result = luceneIndexService.completeIncrementalUpdate();
+        
+        assertEquals(1, result.getAdded());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(2, result.getDeleted());
+        
+        assertTrue(luceneIndexService.searchUsersByName("bro").isEmpty());
+        List<User> janes = luceneIndexService.searchUsersByName("jane");
+        assertEquals(1, janes.size());
+        assertEquals("jane.smith@example.org", janes.get(0).getEmail());
+        List<User> johnnies = luceneIndexService.searchUsersByName("johnny");
+        assertEquals(1, johnnies.size());
+        assertEquals("uuid-5", johnnies.get(0).getLogin().getUuid());
+    }
+
+    @Test
+    void testEquivalentQueriesAreServedFromCache() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        
+        List<User> first = luceneIndexService.searchUsersByName("Bröc");
+        // Same normalized query: lowercased and ASCII-folded
+        List<User> second = luceneIndexService.searchUsersByName("BROC");
+        
+        assertSame(first, second);
+        assertEquals(1, luceneIndexService.getSearchCacheStats().getHitCount());
+        assertEquals(1, luceneIndexService.getSearchCacheStats().getMissCount());
+    }
+
+    @Test
+    void testPendingChangesAreCommittedOnCleanup() throws IOException {
+        luceneIndexService.indexUsers(createTestUsers());
+        luceneIndexService.cleanup();
+        
+        // A new service instance reopens the same index directory
+        luceneIndexService = new LuceneIndexService();
+        
+        assertEquals(1, luceneIndexService.searchUsersByName("Bro").size());
+    }
+
+    @Test
+    void testReindexIsInvisibleUntilCompleted() throws IOException {
+        List<User> users = createTestUsers();
+        luceneIndexService.indexUsers(users.subList(0, 2));
+        
+        luceneIndexService.beginReindex();
+        luceneIndexService.addUsersToReindex(users.subList(2, users.size()));
+        
+        // Searches are still served by the previous generation
+        assertEquals(1, luceneIndexService.searchUsersByName("Smith").size());
+        assertTrue(luceneIndexService.searchUsersByName("Bro").isEmpty());
+        
+        luceneIndexService.completeReindex();
+        
+        assertTrue(luceneIndexService.searchUsersByName("Smith").isEmpty());
+        assertEquals(1, luceneIndexService.searchUsersByName("Bro").size());
+    }
+
+    @Test
+    void testAbortedReindexKeepsLiveGeneration() throws IOException {
+        List<User> users = createTestUsers();
+        luceneIndexService.indexUsers(users);
+        
+        luceneIndexService.beginReindex();
+        luceneIndexService.addUsersToReindex(users.subList(0, 1));
+        luceneIndexService.abortReindex();
+        
+        assertEquals(1, luceneIndexService.searchUsersByName("Bro").size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(DirectoryMode.class)
+    void testSearchWithEachDirectoryMode(DirectoryMode directoryMode) throws IOException {
+        LuceneIndexService service = new LuceneIndexService(directoryMode);
+        try {
+            service.indexUsers(createTestUsers());
+            service.beginReindex();
+            service.addUsersToReindex(createTestUsers());
+            service.completeReindex();
+            
+            assertEquals(1, service.searchUsersByName("Bro").size());
+        } finally {
+            service.cleanup();
+        }
+    }
+
+    @Test
+    void testLargeBatchIsIndexedByParallelThreads() throws IOException {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            User user = new User();
+            User.Name name = new User.Name();
+            name.setFirst("User" + i);
+            name.setLast(i % 10 == 0 ? "Tenth" : "Other");
+            user.setName(name);
+            User.Login login = new User.Login();
+            login.setUuid("uuid-" + i);
+            user.setLogin(login);
+            users.add(user);
+        }
+        
+        LuceneIndexService service = new LuceneIndexService(DirectoryMode.HEAP, 4);
+        try {
+            service.indexUsers(users);
+            
+            SearchRequest request = new SearchRequest("tenth");
+            request.setSize(1000);
+            assertEquals(500, service.searchUsers(request).getUsers().size());
+            assertEquals(1, service.searchUsersByName("user4999").size());
+        } finally {
+            service.cleanup();
+        }
+    }
+
+    @Test
+    void testConcurrentSearchesWhileIndexing() throws Exception {
+        List<User> users = createTestUsers();
+        luceneIndexService.indexUsers(users);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> searches = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                searches.add(executor.submit(() -> luceneIndexService.searchUsersByName("john").size()));
+            }
+            // Writers must not block or break in-flight searches
+            luceneIndexService.indexUsers(users);
+            
+            for (Future<Integer> search : searches) {
+                assertTrue(search.get() >= 2);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private List<User> createTestUsers() {
         List<User> users = new ArrayList<>();
         
@@ -0,0 +1,63 @@
+package com.zouari.blog.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomUserClientTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutorService serverThreads;
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Answers with headers and the start of a body, then stalls until the test ends
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            body.write("{\"results\":[".getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void testStalledBodyTimesOut() {
+        RandomUserClient client = new RandomUserClient("http://localhost:" + server.getAddress().getPort() + "/api/", 500);
+        
+        long start = System.nanoTime();
+        HttpTimeoutException e = assertThrows(HttpTimeoutException.class, () -> client.fetchUsers(1, 100, null));
+        
+        assertTrue(e.getMessage().contains("Page 1"));
+        assertTrue(System.nanoTime() - start < 5_000_000_000L, "The timeout does not cover the body");
+    }
+}
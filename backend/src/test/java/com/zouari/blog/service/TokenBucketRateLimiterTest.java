@@ -0,0 +1,38 @@
+package com.zouari.blog.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void testBurstIsServedWithoutWaiting() throws InterruptedException {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 5);
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire();
+        }
+        
+        assertTrue(System.nanoTime() - start < 500_000_000L, "A full bucket should not block");
+    }
+
+    @Test
+    void testAcquireBeyondBurstWaitsForRefill() throws InterruptedException {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(20, 1);
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire();
+        }
+        
+        // 1 token available immediately, then 4 more at 20 per second
+        assertTrue(System.nanoTime() - start >= 190_000_000L, "Should wait for the bucket to refill");
+    }
+
+    @Test
+    void testInvalidRateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0, 1));
+    }
+}
@@ -0,0 +1,41 @@
+package com.zouari.blog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a synthetic corpus as NDJSON, gzip compressed when the file name ends with {@code .gz},
+ * ready to be posted to {@code /indexation/import}:
+ * {@code CorpusGenerator <file> [users] [seed]}.
+ */
+public class CorpusGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: CorpusGenerator <file> [users] [seed]");
+            System.exit(1);
+        }
+        Path file = Path.of(args[0]);
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        
+        UserGenerator generator = new UserGenerator(seed);
+        OutputStream output = new BufferedOutputStream(Files.newOutputStream(file));
+        if (file.getFileName().toString().endsWith(".gz")) {
+            output = new GZIPOutputStream(output);
+        }
+        try (SequenceWriter writer = new ObjectMapper().writer().withRootValueSeparator("\n").writeValues(output)) {
+            for (int i = 0; i < users; i++) {
+                writer.write(generator.next());
+            }
+        }
+        System.out.println("Wrote " + users + " users to " + file);
+    }
+}
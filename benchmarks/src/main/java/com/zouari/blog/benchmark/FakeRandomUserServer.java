@@ -0,0 +1,135 @@
+package com.zouari.blog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zouari.blog.model.RandomUserResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the randomuser.me API, for indexation load tests that must not depend on the
+ * network. It answers {@code GET /api/?results=&page=&seed=} with the same JSON shape, built by
+ * {@link UserGenerator}: a given seed and page always return the same users. Each response can be
+ * delayed, and a share of the requests can fail with a 503; whether a request fails depends only
+ * on its seed, page and attempt number, so a run is reproducible whatever order pages are fetched in.
+ */
+public class FakeRandomUserServer implements AutoCloseable {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final long latencyMs;
+    private final double errorRate;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the server on {@code port}, or on a free port when it is 0.
+     */
+    public FakeRandomUserServer(int port, long latencyMs, double errorRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-randomuser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Base URL to configure the client with, as {@code randomuser.baseUrl}.
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/api/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            int results = Integer.parseInt(parameters.getOrDefault("results", "1"));
+            int page = Integer.parseInt(parameters.getOrDefault("page", "1"));
+            String seed = parameters.getOrDefault("seed", "");
+            
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            
+            String pageKey = seed + ":" + page;
+            int attempt = attempts.computeIfAbsent(pageKey, key -> new AtomicInteger()).incrementAndGet();
+            if (new Random((pageKey + ":" + attempt).hashCode()).nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            
+            RandomUserResponse response = new RandomUserResponse();
+            response.setResults(new UserGenerator(pageKey.hashCode()).generate(results));
+            RandomUserResponse.Info info = new RandomUserResponse.Info();
+            info.setSeed(seed);
+            info.setResults(results);
+            info.setPage(page);
+            info.setVersion("1.4");
+            response.setInfo(info);
+            
+            byte[] body = OBJECT_MAPPER.writeValueAsBytes(response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } catch (NumberFormatException e) {
+            exchange.sendResponseHeaders(400, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(parameter.substring(0, equals),
+                            URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Runs the server until the process is stopped:
+     * {@code FakeRandomUserServer [port] [latencyMs] [errorRate]}.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        double errorRate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        
+        FakeRandomUserServer server = new FakeRandomUserServer(port, latencyMs, errorRate);
+        System.out.println("Serving fake randomuser.me API at " + server.getBaseUrl()
+                + " (latency " + latencyMs + " ms, error rate " + errorRate + ")");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,104 @@
+package com.zouari.blog.benchmark;
+
+import com.zouari.blog.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic synthetic users shaped like the randomuser.me API results, including accented
+ * names so that the ASCII-folding path is exercised. The same seed always yields the same users.
+ */
+public class UserGenerator {
+    private static final String[] FIRST_NAMES = {
+            "John", "Jane", "Hans", "Johnny", "Émile", "Zoé", "Jürgen", "Søren", "Ángel", "Łukasz",
+            "Françoise", "Noël", "Björn", "Inès", "Mathéo", "Aurélie", "Pål", "José", "Chloé", "Ümit",
+            "Olivia", "Liam", "Emma", "Noah", "Amelia", "Lucas", "Mia", "Ethan", "Ella", "Mateo"
+    };
+    private static final String[] LAST_NAMES = {
+            "Doe", "Smith", "Bröcker", "Walker", "Müller", "Dubois", "García", "Øvergård", "Kowalski", "Lefèvre",
+            "Nuñez", "Schäfer", "Çelik", "Jørgensen", "Böhm", "Fernández", "Lindqvist", "Martín", "Zieliński", "Moreau",
+            "Johnson", "Brown", "Taylor", "Wilson", "Anderson", "Thomas", "Moore", "Martin", "Jackson", "White"
+    };
+    // Half of the last names are built from syllables, so that the term dictionary grows with the corpus
+    private static final String[] SYLLABLES = {
+            "ka", "ri", "lo", "mé", "san", "dre", "vo", "ström", "bel", "ni", "tz", "gaard", "qui", "ño", "ber", "lé"
+    };
+    private static final String[][] LOCATIONS = {
+            {"FR", "Paris", "Île-de-France", "France"},
+            {"DE", "München", "Bayern", "Germany"},
+            {"ES", "Málaga", "Andalucía", "Spain"},
+            {"DK", "Århus", "Midtjylland", "Denmark"},
+            {"NO", "Tromsø", "Troms", "Norway"},
+            {"TR", "İzmir", "Ege", "Turkey"},
+            {"US", "Springfield", "Illinois", "United States"},
+            {"GB", "London", "Greater London", "United Kingdom"},
+            {"CH", "Zürich", "Zürich", "Switzerland"},
+            {"BR", "São Paulo", "São Paulo", "Brazil"}
+    };
+
+    private final Random random;
+
+    public UserGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public List<User> generate(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(next());
+        }
+        return users;
+    }
+
+    public User next() {
+        User user = new User();
+
+        User.Name name = new User.Name();
+        boolean female = random.nextBoolean();
+        name.setTitle(female ? "Ms" : "Mr");
+        name.setFirst(pick(FIRST_NAMES));
+        name.setLast(random.nextBoolean() ? pick(LAST_NAMES) : syllableName());
+        user.setName(name);
+        user.setGender(female ? "female" : "male");
+
+        User.Login login = new User.Login();
+        login.setUuid(new UUID(random.nextLong(), random.nextLong()).toString());
+        login.setUsername(name.getFirst().toLowerCase(Locale.ROOT) + random.nextInt(10000));
+        user.setLogin(login);
+
+        String[] place = pick(LOCATIONS);
+        User.Location location = new User.Location();
+        location.setCity(place[1]);
+        location.setState(place[2]);
+        location.setCountry(place[3]);
+        location.setPostcode(String.valueOf(10000 + random.nextInt(90000)));
+        user.setLocation(location);
+        user.setNat(place[0]);
+
+        user.setEmail(login.getUsername() + "@example.com");
+        user.setPhone(phoneNumber());
+        user.setCell(phoneNumber());
+        return user;
+    }
+
+    private String syllableName() {
+        StringBuilder builder = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            builder.append(pick(SYLLABLES));
+        }
+        return Character.toUpperCase(builder.charAt(0)) + builder.substring(1);
+    }
+
+    private String phoneNumber() {
+        return String.format(Locale.ROOT, "0%d-%03d-%04d", random.nextInt(10), random.nextInt(1000), random.nextInt(10000));
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,78 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import com.zouari.blog.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Query latency for each {@link DirectoryMode}. The file system modes write to a temporary
+ * directory of their own, deleted when the trial ends. The search result cache is disabled so
+ * that every call reads the directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dsearch.cache.maxEntries=0"})
+public class DirectoryModeBenchmark {
+    @Param({"FS", "MMAP", "NIO", "HEAP", "OFFHEAP"})
+    private DirectoryMode directoryMode;
+
+    @Param({"100000"})
+    private int users;
+
+    private Path indexDirectory;
+    private LuceneIndexService luceneIndexService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        indexDirectory = Files.createTempDirectory("lucene-index-benchmark");
+        luceneIndexService = new LuceneIndexService(directoryMode, indexDirectory);
+        luceneIndexService.indexUsers(new UserGenerator(42).generate(users));
+        luceneIndexService.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        luceneIndexService.cleanup();
+        deleteDirectory(indexDirectory);
+    }
+
+    @Benchmark
+    public List<User> search() throws IOException {
+        next = (next + 1) % SearchBenchmark.QUERIES.length;
+        return luceneIndexService.searchUsersByName(SearchBenchmark.QUERIES[next]);
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import com.zouari.blog.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from a new {@link LuceneIndexService} to its first answered search, for each
+ * {@link DirectoryMode}. File system modes reopen the index written during setup; in-memory modes
+ * start empty, so their startup includes indexing the corpus again. The index is written to a
+ * temporary directory of the benchmark's own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DirectoryStartupBenchmark {
+
+    @Param({"FS", "MMAP", "NIO", "HEAP", "OFFHEAP"})
+    private DirectoryMode directoryMode;
+
+    @Param({"100000"})
+    private int users;
+
+    private List<User> corpus;
+    private Path indexDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = new UserGenerator(42).generate(users);
+        indexDirectory = Files.createTempDirectory("lucene-index-benchmark");
+        if (directoryMode.isPersistent()) {
+            LuceneIndexService luceneIndexService = new LuceneIndexService(directoryMode, indexDirectory);
+            luceneIndexService.indexUsers(corpus);
+            luceneIndexService.cleanup();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DirectoryModeBenchmark.deleteDirectory(indexDirectory);
+    }
+
+    @Benchmark
+    public List<User> startAndSearch() throws IOException {
+        LuceneIndexService luceneIndexService = new LuceneIndexService(directoryMode, indexDirectory);
+        try {
+            if (!directoryMode.isPersistent()) {
+                luceneIndexService.indexUsers(corpus);
+            }
+            return luceneIndexService.searchUsersByName("bro");
+        } finally {
+            luceneIndexService.cleanup();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import com.zouari.blog.model.User;
+import org.apache.lucene.document.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user cost of {@link LuceneIndexService#createDocument}, which refills a reusable document,
+ * of building a new {@link UserDocument} per user instead, and of
+ * {@link LuceneIndexService#convertDocumentToUser}. Run with {@code -prof gc} to see the bytes
+ * allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentBenchmark {
+    private static final int CORPUS_SIZE = 10000;
+
+    private final LuceneIndexService luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP);
+    private List<User> corpus;
+    private Document[] documents;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        corpus = new UserGenerator(42).generate(CORPUS_SIZE);
+        documents = new Document[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            // createDocument would hand out the same reused instance every time
+            documents[i] = new UserDocument(true).fill(corpus.get(i));
+        }
+    }
+
+    @Benchmark
+    public Document createDocument() {
+        next = (next + 1) % CORPUS_SIZE;
+        return luceneIndexService.createDocument(corpus.get(next));
+    }
+
+    @Benchmark
+    public Document createNewDocument() {
+        next = (next + 1) % CORPUS_SIZE;
+        return new UserDocument(true).fill(corpus.get(next));
+    }
+
+    @Benchmark
+    public User convertDocumentToUser() {
+        next = (next + 1) % CORPUS_SIZE;
+        return luceneIndexService.convertDocumentToUser(documents[next]);
+    }
+}
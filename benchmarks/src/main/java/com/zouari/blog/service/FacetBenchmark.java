@@ -0,0 +1,69 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import com.zouari.blog.model.SearchPage;
+import com.zouari.blog.model.SearchRequest;
+import com.zouari.blog.model.UserFacet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles of a page of 20 hits with and without the counts of every facet over all
+ * hits, for queries matching more and more users. The search result cache is disabled so that
+ * every call runs its query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dsearch.cache.maxEntries=0"})
+public class FacetBenchmark {
+    @Param({"1000000"})
+    private int users;
+
+    // A last name syllable, a first name and a short substring of many names
+    @Param({"ström", "emma", "an"})
+    private String query;
+
+    @Param({"false", "true"})
+    private boolean facets;
+
+    private LuceneIndexService luceneIndexService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP);
+        luceneIndexService.indexUsers(new UserGenerator(42).generate(users));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        luceneIndexService.cleanup();
+    }
+
+    @Benchmark
+    public SearchPage search() throws IOException {
+        SearchRequest request = new SearchRequest(query);
+        request.setSize(20);
+        if (facets) {
+            request.setFacets(EnumSet.allOf(UserFacet.class));
+        }
+        return luceneIndexService.searchUsers(request);
+    }
+}
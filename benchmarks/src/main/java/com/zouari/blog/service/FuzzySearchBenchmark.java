@@ -0,0 +1,74 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import com.zouari.blog.model.SearchMode;
+import com.zouari.blog.model.SearchPage;
+import com.zouari.blog.model.SearchRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles of fuzzy name searches for each edit distance and exact prefix length,
+ * against the substring search of the same misspelled names. The search result cache is
+ * disabled so that every call runs its query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dsearch.cache.maxEntries=0"})
+public class FuzzySearchBenchmark {
+    // Misspellings of names the generator produces, some of them accented in the index
+    static final String[] QUERIES = {"jonh", "brocker", "mular", "andersn", "smiht", "kowalsky", "lefevre", "jorgensen", "garcai", "wilsno"};
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"substring", "fuzzy"})
+    private String mode;
+
+    @Param({"1", "2"})
+    private int maxEdits;
+
+    @Param({"0", "1", "2"})
+    private int prefixLength;
+
+    private LuceneIndexService luceneIndexService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP);
+        luceneIndexService.indexUsers(new UserGenerator(42).generate(users));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        luceneIndexService.cleanup();
+    }
+
+    @Benchmark
+    public SearchPage search() throws IOException {
+        SearchRequest request = new SearchRequest(QUERIES[next]);
+        next = (next + 1) % QUERIES.length;
+        request.setMode(SearchMode.fromParameter(mode));
+        request.setMaxEdits(maxEdits);
+        request.setPrefixLength(prefixLength);
+        return luceneIndexService.searchUsers(request);
+    }
+}
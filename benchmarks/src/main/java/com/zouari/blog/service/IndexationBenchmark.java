@@ -0,0 +1,78 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.FakeRandomUserServer;
+import com.zouari.blog.model.IndexationStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end indexation job (fetch, parse, index, swap) against a local
+ * {@link FakeRandomUserServer}, so that pipeline throughput can be measured without the network.
+ * The request rate limit is lifted: the server latency stands in for the API. Each measurement is
+ * one complete job of 50 pages of 100 users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dindexation.fetchRatePerSecond=1000000"})
+public class IndexationBenchmark {
+
+    @Param({"0", "50"})
+    private long latencyMs;
+
+    @Param({"0", "0.05"})
+    private double errorRate;
+
+    private FakeRandomUserServer server;
+    private LuceneIndexService luceneIndexService;
+    private IndexationService indexationService;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        server = new FakeRandomUserServer(0, latencyMs, errorRate);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void openIndex() {
+        luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP);
+        indexationService = new IndexationService(new RandomUserClient(server.getBaseUrl()), luceneIndexService);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeIndex() {
+        indexationService.shutdown();
+        luceneIndexService.cleanup();
+    }
+
+    @Benchmark
+    public IndexationStatus indexation() throws InterruptedException {
+        if (!indexationService.startIndexation()) {
+            throw new IllegalStateException("Indexation already in progress");
+        }
+        while (indexationService.getStatus().getStatus() == IndexationStatus.Status.IN_PROGRESS) {
+            Thread.sleep(1);
+        }
+        return indexationService.getStatus();
+    }
+}
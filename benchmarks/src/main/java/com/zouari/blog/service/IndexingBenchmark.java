@@ -0,0 +1,64 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import com.zouari.blog.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to bulk load the whole corpus with {@link LuceneIndexService#indexUsers} into a fresh
+ * in-memory index, with one or more indexing threads. Each measurement is one complete load; the
+ * service logs the resulting docs/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class IndexingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int users;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private List<User> corpus;
+    private LuceneIndexService luceneIndexService;
+
+    @Setup(Level.Trial)
+    public void generateCorpus() {
+        corpus = new UserGenerator(42).generate(users);
+    }
+
+    @Setup(Level.Iteration)
+    public void openIndex() {
+        luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP, threads);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeIndex() {
+        luceneIndexService.cleanup();
+    }
+
+    @Benchmark
+    public void indexUsers() throws IOException {
+        luceneIndexService.indexUsers(corpus);
+    }
+}
@@ -0,0 +1,67 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import com.zouari.blog.model.SearchPage;
+import com.zouari.blog.model.SearchRequest;
+import com.zouari.blog.model.UserField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building a page of 100 hits from stored fields versus projecting the fields the UI
+ * shows from doc values. The search result cache is disabled so that every call loads its hits;
+ * run with {@code -prof gc} to compare allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dsearch.cache.maxEntries=0"})
+public class ProjectionBenchmark {
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"stored", "projected"})
+    private String loading;
+
+    private LuceneIndexService luceneIndexService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP);
+        luceneIndexService.indexUsers(new UserGenerator(42).generate(users));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        luceneIndexService.cleanup();
+    }
+
+    @Benchmark
+    public SearchPage search() throws IOException {
+        SearchRequest request = new SearchRequest(SearchBenchmark.QUERIES[next]);
+        next = (next + 1) % SearchBenchmark.QUERIES.length;
+        if (loading.equals("projected")) {
+            request.setFields(EnumSet.of(UserField.NAME, UserField.EMAIL, UserField.NATIONALITY, UserField.CITY));
+        }
+        return luceneIndexService.searchUsers(request);
+    }
+}
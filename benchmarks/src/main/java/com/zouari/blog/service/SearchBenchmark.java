@@ -0,0 +1,76 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import com.zouari.blog.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and throughput of {@link LuceneIndexService#searchUsersByName} over an in-memory index.
+ * Comparing the single-thread and all-threads results shows how searches scale with request
+ * threads. The search result cache is disabled so that every call runs its query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dsearch.cache.maxEntries=0"})
+public class SearchBenchmark {
+    static final String[] QUERIES = {"bro", "john", "Mül", "ka", "ström", "smith", "e", "anderson", "zoé", "gaard"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int users;
+
+    private LuceneIndexService luceneIndexService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP);
+        luceneIndexService.indexUsers(new UserGenerator(42).generate(users));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        luceneIndexService.cleanup();
+    }
+
+    @State(Scope.Thread)
+    public static class QueryCursor {
+        private int next;
+
+        String nextQuery() {
+            String query = QUERIES[next];
+            next = (next + 1) % QUERIES.length;
+            return query;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<User> searchOneThread(QueryCursor cursor) throws IOException {
+        return luceneIndexService.searchUsersByName(cursor.nextQuery());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<User> searchAllThreads(QueryCursor cursor) throws IOException {
+        return luceneIndexService.searchUsersByName(cursor.nextQuery());
+    }
+}
@@ -0,0 +1,59 @@
+package com.zouari.blog.service;
+
+import com.zouari.blog.benchmark.UserGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles of name completions as they are typed, from one letter to a first name
+ * followed by the start of a last name. The suggester is built once during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dsearch.cache.maxEntries=0"})
+public class SuggestBenchmark {
+    static final String[] PREFIXES = {"j", "jo", "joh", "john", "johnny w", "bro", "mül", "ka", "kari", "emma t"};
+
+    @Param({"100000", "1000000"})
+    private int users;
+
+    private LuceneIndexService luceneIndexService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        luceneIndexService = new LuceneIndexService(DirectoryMode.HEAP);
+        luceneIndexService.indexUsers(new UserGenerator(42).generate(users));
+        luceneIndexService.suggestNames(PREFIXES[0], 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        luceneIndexService.cleanup();
+    }
+
+    @Benchmark
+    public List<String> suggest() throws IOException {
+        String prefix = PREFIXES[next];
+        next = (next + 1) % PREFIXES.length;
+        return luceneIndexService.suggestNames(prefix, 10);
+    }
+}
@@ -1,37 +1,67 @@
 // API base URL - adjust based on your deployment
 const API_BASE_URL = '/blog-lucene-app/api';
 
-// Poll interval in milliseconds (10 seconds)
-const POLL_INTERVAL = 10000;
 
-// Current polling timeout ID
-let pollingTimeoutId = null;
+// Number of users requested per search page
+const SEARCH_PAGE_SIZE = 20;
+
+// User fields shown in search results, projected by the server
+const SEARCH_FIELDS = 'name,email';
+
+// Names suggested while typing in the search input
+const SUGGESTION_COUNT = 8;
+const SUGGESTION_DELAY_MS = 150;
+let suggestionTimer = null;
+
+// Server-sent events carrying the indexation status
+let statusEvents = null;
+
+// Last indexation status received, kept up to date with the progress deltas
+let currentStatus = null;
 
 // Initialize the page when DOM is loaded
 document.addEventListener('DOMContentLoaded', function() {
     console.log('Lucene Indexation Manager initialized');
-    loadIndexStatus();
+    subscribeToStatus();
 });
 
 /**
- * Load the current index status from the API
+ * Subscribe to the indexation status: the server sends the full status first,
+ * then only the fields that changed, as they change
  */
-async function loadIndexStatus() {
-    try {
-        const response = await fetch(`${API_BASE_URL}/indexation/status`);
-        if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
+function subscribeToStatus() {
+    unsubscribeFromStatus();
+    statusEvents = new EventSource(`${API_BASE_URL}/indexation/events`);
+    
+    statusEvents.addEventListener('status', function(event) {
+        currentStatus = JSON.parse(event.data);
+        updateUI(currentStatus);
+    });
+    
+    statusEvents.addEventListener('progress', function(event) {
+        if (currentStatus) {
+            Object.assign(currentStatus, JSON.parse(event.data));
+            updateUI(currentStatus);
         }
-        const status = await response.json();
-        updateUI(status);
-        
-        // If indexation is in progress, start polling
-        if (status.status === 'IN_PROGRESS') {
-            startPolling();
+    });
+    
+    statusEvents.onerror = function() {
+        // The browser reconnects by itself, and the server then sends the full status again
+        console.error('Lost the indexation status stream, reconnecting');
+        if (!currentStatus) {
+            showError('Failed to load index status. Please check if the backend is running.');
         }
-    } catch (error) {
-        console.error('Error loading index status:', error);
-        showError('Failed to load index status. Please check if the backend is running.');
+        currentStatus = null;
+    };
+}
+
+/**
+ * Close the indexation status stream
+ */
+function unsubscribeFromStatus() {
+    if (statusEvents) {
+        statusEvents.close();
+        statusEvents = null;
     }
 }
 
@@ -58,12 +88,9 @@ async function startIndexation() {
         
         console.log('Indexation started successfully');
         
-        // Show progress section
+        // Show progress section, the status stream updates it from now on
         document.getElementById('progressSection').classList.remove('hidden');
         
-        // Start polling for status updates
-        startPolling();
-        
     } catch (error) {
         console.error('Error starting indexation:', error);
         alert('Failed to start indexation: ' + error.message);
@@ -71,54 +98,6 @@ async function startIndexation() {
     }
 }
 
-/**
- * Start polling for status updates
- */
-function startPolling() {
-    // Clear any existing polling
-    stopPolling();
-    
-    // Poll immediately, then continue every 10 seconds
-    pollStatus();
-}
-
-/**
- * Stop polling for status updates
- */
-function stopPolling() {
-    if (pollingTimeoutId) {
-        clearTimeout(pollingTimeoutId);
-        pollingTimeoutId = null;
-    }
-}
-
-/**
- * Poll for status update
- */
-async function pollStatus() {
-    try {
-        const response = await fetch(`${API_BASE_URL}/indexation/status`);
-        if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        const status = await response.json();
-        updateUI(status);
-        
-        // Continue polling if still in progress
-        if (status.status === 'IN_PROGRESS') {
-            pollingTimeoutId = setTimeout(pollStatus, POLL_INTERVAL);
-        } else {
-            stopPolling();
-            // Re-enable start button when not in progress
-            document.getElementById('startButton').disabled = false;
-        }
-    } catch (error) {
-        console.error('Error polling status:', error);
-        // Continue polling even on error
-        pollingTimeoutId = setTimeout(pollStatus, POLL_INTERVAL);
-    }
-}
-
 /**
  * Update the UI based on current status
  */
@@ -181,7 +160,19 @@ function updateProgressSection(status) {
         document.getElementById('progressPercentage').textContent = percentage + '%';
         document.getElementById('progressFill').style.width = percentage + '%';
         
-        const details = `Processed: ${status.processedPages} of ${status.totalPages} pages | Users indexed: ${status.totalUsers.toLocaleString()}`;
+        let details = `Processed: ${status.processedPages} of ${status.totalPages} pages | Users indexed: ${status.totalUsers.toLocaleString()}`;
+        if (status.usersPerSecond != null) {
+            details += ` | ${Math.round(status.usersPerSecond).toLocaleString()} users/s`;
+        }
+        if (status.etaSeconds != null) {
+            details += ` | ETA: ${formatEta(status.etaSeconds)}`;
+        }
+        if (status.queueDepth > 0) {
+            details += ` | Queued pages: ${status.queueDepth}`;
+        }
+        if (status.failedRequests > 0) {
+            details += ` | Failed requests: ${status.failedRequests} (${status.retriedRequests} retried)`;
+        }
         document.getElementById('progressDetails').textContent = details;
         
     } else {
@@ -190,6 +181,17 @@ function updateProgressSection(status) {
     }
 }
 
+/**
+ * Format a number of seconds as "1min 05s" or "42s"
+ */
+function formatEta(seconds) {
+    const minutes = Math.floor(seconds / 60);
+    const remainingSeconds = seconds % 60;
+    return minutes > 0
+        ? `${minutes}min ${String(remainingSeconds).padStart(2, '0')}s`
+        : `${remainingSeconds}s`;
+}
+
 /**
  * Update history section
  */
@@ -276,9 +278,9 @@ function showError(message) {
     existingIndexInfo.innerHTML = `<p class="error">${message}</p>`;
 }
 
-// Clean up polling when page is unloaded
+// Close the status stream when page is unloaded
 window.addEventListener('beforeunload', function() {
-    stopPolling();
+    unsubscribeFromStatus();
 });
 
 /**
@@ -326,15 +328,10 @@ async function searchUsers() {
     searchResults.innerHTML = '<p class="search-loading">Searching...</p>';
     
     try {
-        const response = await fetch(`${API_BASE_URL}/search/users?name=${encodeURIComponent(query)}`);
-        const data = await response.json();
-        
-        if (!response.ok) {
-            throw new Error(data.error || 'Failed to search users');
-        }
+        const page = await fetchSearchPage(query, null);
         
         // Display results
-        displaySearchResults(data);
+        displaySearchResults(query, page);
         
     } catch (error) {
         console.error('Error searching users:', error);
@@ -345,19 +342,50 @@ async function searchUsers() {
 }
 
 /**
- * Display search results
+ * Fetch one page of search results, starting after the given cursor
  */
-function displaySearchResults(users) {
+async function fetchSearchPage(query, cursor) {
+    let url = `${API_BASE_URL}/search/users?name=${encodeURIComponent(query)}&size=${SEARCH_PAGE_SIZE}&fields=${SEARCH_FIELDS}`;
+    if (cursor) {
+        url += `&searchAfter=${encodeURIComponent(cursor)}`;
+    }
+    
+    const response = await fetch(url);
+    const data = await response.json();
+    
+    if (!response.ok) {
+        throw new Error(data.error || 'Failed to search users');
+    }
+    
+    return data;
+}
+
+/**
+ * Display the first page of search results
+ */
+function displaySearchResults(query, page) {
     const searchResults = document.getElementById('searchResults');
     
-    if (!users || users.length === 0) {
+    if (!page.users || page.users.length === 0) {
         searchResults.innerHTML = '<p class="no-data">No users found matching your search</p>';
         return;
     }
     
-    let html = `<p class="search-count">Found ${users.length} user${users.length > 1 ? 's' : ''}</p>`;
+    searchResults.innerHTML = `
+        <p class="search-count">Found ${page.totalHits} user${page.totalHits > 1 ? 's' : ''}</p>
+        <div id="searchResultList"></div>
+    `;
+    appendSearchResults(query, page);
+}
+
+/**
+ * Append a page of users to the result list, with a button for the next page if there is one
+ */
+function appendSearchResults(query, page) {
+    const resultList = document.getElementById('searchResultList');
     
-    users.forEach(user => {
+    let html = '';
+    page.users.forEach(user => {
         const title = user.name?.title || '';
         const firstName = user.name?.first || '';
         const lastName = user.name?.last || '';
@@ -372,12 +400,73 @@ function displaySearchResults(users) {
             </div>
         `;
     });
+    resultList.insertAdjacentHTML('beforeend', html);
+    
+    const previousButton = document.getElementById('loadMoreButton');
+    if (previousButton) {
+        previousButton.remove();
+    }
+    
+    if (page.nextCursor) {
+        const loadMoreButton = document.createElement('button');
+        loadMoreButton.id = 'loadMoreButton';
+        loadMoreButton.className = 'btn btn-primary load-more';
+        loadMoreButton.textContent = 'Load more';
+        loadMoreButton.addEventListener('click', () => loadMoreResults(query, page.nextCursor));
+        resultList.after(loadMoreButton);
+    }
+}
+
+/**
+ * Load the page of results following the given cursor
+ */
+async function loadMoreResults(query, cursor) {
+    const loadMoreButton = document.getElementById('loadMoreButton');
+    loadMoreButton.disabled = true;
     
-    searchResults.innerHTML = html;
+    try {
+        const page = await fetchSearchPage(query, cursor);
+        appendSearchResults(query, page);
+    } catch (error) {
+        console.error('Error loading more users:', error);
+        loadMoreButton.disabled = false;
+        loadMoreButton.insertAdjacentHTML('beforebegin', `<div class="search-error">Error: ${error.message}</div>`);
+    }
 }
 
 /**
- * Handle Enter key in search input
+ * Fill the search input's datalist with the names completing its current value
+ */
+async function suggestNames() {
+    const query = document.getElementById('searchInput').value.trim();
+    const suggestions = document.getElementById('nameSuggestions');
+    if (!query) {
+        suggestions.replaceChildren();
+        return;
+    }
+    
+    try {
+        const response = await fetch(`${API_BASE_URL}/search/suggest?prefix=${encodeURIComponent(query)}&size=${SUGGESTION_COUNT}`);
+        if (!response.ok) {
+            return;
+        }
+        const data = await response.json();
+        // Drop answers to a value the user has typed past
+        if (document.getElementById('searchInput').value.trim() !== query) {
+            return;
+        }
+        suggestions.replaceChildren(...data.suggestions.map(name => {
+            const option = document.createElement('option');
+            option.value = name;
+            return option;
+        }));
+    } catch (error) {
+        console.error('Error suggesting names:', error);
+    }
+}
+
+/**
+ * Handle Enter key and typeahead in search input
  */
 document.addEventListener('DOMContentLoaded', function() {
     const searchInput = document.getElementById('searchInput');
@@ -387,5 +476,9 @@ document.addEventListener('DOMContentLoaded', function() {
                 searchUsers();
             }
         });
+        searchInput.addEventListener('input', function() {
+            clearTimeout(suggestionTimer);
+            suggestionTimer = setTimeout(suggestNames, SUGGESTION_DELAY_MS);
+        });
     }
 });